@@ -34,6 +34,10 @@ interface IrClass : IrAnnotated, IrHasModifiers {
   val simpleName: String
     get() = type.simpleName
 
+  /** Qualified name of the class declaration, without type arguments. */
+  val rawQualifiedName: String
+    get() = qualifiedName.takeWhile { it != '<' }
+
   fun hasNonDefaultConstructor(): Boolean = constructors.any { it.hasParameters() }
 
   fun annotatedInnerClass(annotationClass: KClass<out Annotation>): IrClass? =
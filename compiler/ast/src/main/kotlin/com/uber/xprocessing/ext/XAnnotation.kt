@@ -39,6 +39,17 @@ fun XAnnotation.isEquivalent(other: XAnnotation, env: XProcessingEnv): Boolean =
           annotationValues.zip(other.annotationValues).all { (lhs, rhs) -> lhs.isEquivalent(rhs) })
     }
 
+/**
+ * Returns a key that is equal to another annotation's key iff [isEquivalent] holds for the two
+ * annotations.
+ */
+fun XAnnotation.equivalenceKey(env: XProcessingEnv): Any =
+    if (env.backend == XProcessingEnv.Backend.JAVAC) {
+      AnnotationMirrors.equivalence().wrap(this.toJavac())
+    } else {
+      Pair(XTypeKey(type, env), annotationValues.map { it.name to it.value })
+    }
+
 /**
  * Used to find equivalence of two XAnnotation since AnnotationMirrors.equivalence() only applies to
  * the Javac backend.
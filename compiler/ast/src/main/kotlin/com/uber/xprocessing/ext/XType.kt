@@ -170,13 +170,66 @@ fun XType.hash(): Int =
     try {
       MoreTypes.equivalence().wrap(this.toJavac()).hashCode()
     } catch (t: Throwable) {
-      if (typeArguments.any { it.typeName is WildcardTypeName && it.typeName.toString() != "?" }) {
-        extendsBoundOrSelf().typeName.toString().hashCode()
-      } else {
-        typeName.removeWildcardTypeIfContains().toString().hashCode()
+      kspHash()
+    }
+
+/** Same as [hash], but checks the backend instead of relying on [toJavac] throwing on KSP. */
+fun XType.hash(env: XProcessingEnv): Int =
+    when (env.backend) {
+      XProcessingEnv.Backend.JAVAC -> MoreTypes.equivalence().wrap(this.toJavac()).hashCode()
+      XProcessingEnv.Backend.KSP -> kspHash()
+    }
+
+/**
+ * On KSP, [isEquivalent] compares types by [qualifiedName] if either contains a NonExistentClass,
+ * and by their TypeName without wildcards otherwise. Both agree on the erased class name, so only
+ * that is hashed.
+ */
+private fun XType.kspHash(): Int =
+    if ("NonExistentClass" in typeName.toString()) {
+      // The same prefix that qualifiedName builds for these types.
+      val declaration = toKS().declaration
+      "${declaration.packageName.asString()}.${declaration.simpleName.asString()}".hashCode()
+    } else {
+      when (val typeName = typeName.removeWildcardTypeIfContains()) {
+        is ParameterizedTypeName -> typeName.rawType.canonicalName().hashCode()
+        is com.squareup.javapoet.ClassName -> typeName.canonicalName().hashCode()
+        else -> typeName.hashCode()
       }
     }
 
+/**
+ * Canonical key for an XType. Two keys are equal iff their types are equivalent according to
+ * [isEquivalent], and equal keys have equal hash codes. On KSP, types that only differ in their
+ * type arguments share a hash code.
+ */
+class XTypeKey(private val type: XType, private val env: XProcessingEnv) {
+
+  private val hash: Int by lazy { type.hash(env) }
+
+  private val isNonExistent: Boolean by lazy {
+    env.backend == XProcessingEnv.Backend.KSP && "NonExistentClass" in type.typeName.toString()
+  }
+
+  private val qualifiedName: String by lazy { type.qualifiedName(env) }
+
+  private val key: Any by lazy {
+    when (env.backend) {
+      XProcessingEnv.Backend.JAVAC -> MoreTypes.equivalence().wrap(type.toJavac())
+      XProcessingEnv.Backend.KSP -> type.typeName.removeWildcardTypeIfContains()
+    }
+  }
+
+  override fun equals(other: Any?): Boolean {
+    if (this === other) return true
+    if (other !is XTypeKey) return false
+    if (isNonExistent || other.isNonExistent) return qualifiedName == other.qualifiedName
+    return key == other.key
+  }
+
+  override fun hashCode(): Int = hash
+}
+
 fun XType.isInternal(): Boolean {
   val ksType =
       try {
@@ -18,7 +18,7 @@ package motif.ast.compiler
 import androidx.room.compiler.processing.ExperimentalProcessingApi
 import androidx.room.compiler.processing.XAnnotation
 import androidx.room.compiler.processing.XProcessingEnv
-import com.uber.xprocessing.ext.isEquivalent
+import com.uber.xprocessing.ext.equivalenceKey
 import com.uber.xprocessing.ext.toPrettyString
 import kotlin.reflect.KClass
 import motif.ast.IrAnnotation
@@ -26,7 +26,11 @@ import motif.ast.IrMethod
 import motif.ast.IrType
 
 @OptIn(ExperimentalProcessingApi::class)
-class CompilerAnnotation(val env: XProcessingEnv, val mirror: XAnnotation) : IrAnnotation {
+class CompilerAnnotation(
+    val env: XProcessingEnv,
+    val mirror: XAnnotation,
+    private val cache: CompilerCache = CompilerCache(env),
+) : IrAnnotation {
 
   override val className: String by lazy {
     mirror.type.typeElement?.qualifiedName
@@ -35,7 +39,9 @@ class CompilerAnnotation(val env: XProcessingEnv, val mirror: XAnnotation) : IrA
 
   private val pretty: String by lazy { mirror.toPrettyString() }
 
-  override val type: IrType = CompilerType(env, mirror.type)
+  private val equivalenceKey: Any by lazy { mirror.equivalenceKey(env) }
+
+  override val type: IrType = cache.type(mirror.type)
 
   override val annotationValueMap: Map<String, Any?>
     get() = mirror.annotationValues.associate { it.name to it.value }
@@ -48,7 +54,13 @@ class CompilerAnnotation(val env: XProcessingEnv, val mirror: XAnnotation) : IrA
               ?: throw IllegalStateException(
                   "No matching annotations for ${annotationValue.name} in ${mirror.annotationValues.map { it.name }.joinToString(separator = ", ")}",
               )
-      CompilerMethod(env, mirror.type, executableElement.executableType, executableElement)
+      CompilerMethod(
+          env,
+          mirror.type,
+          executableElement.executableType,
+          executableElement,
+          cache,
+      )
     }
   }
 
@@ -61,7 +73,7 @@ class CompilerAnnotation(val env: XProcessingEnv, val mirror: XAnnotation) : IrA
 
     other as CompilerAnnotation
 
-    if (!mirror.isEquivalent(other.mirror, env)) return false
+    if (equivalenceKey != other.equivalenceKey) return false
 
     return true
   }
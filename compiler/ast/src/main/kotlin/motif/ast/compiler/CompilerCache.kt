@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.ast.compiler
+
+import androidx.room.compiler.processing.ExperimentalProcessingApi
+import androidx.room.compiler.processing.XProcessingEnv
+import androidx.room.compiler.processing.XType
+
+/**
+ * Interns the IR wrappers created during a processing round so that each [XType] maps to a single
+ * [CompilerType] and [CompilerClass]. Their lazily computed members (methods, supertypes,
+ * annotations, fields) are then computed once per cache instead of once per lookup.
+ *
+ * Every wrapper holds the cache it was created from and resolves related types through it. The
+ * owner of the root classes, usually the processing step, creates a new cache for each round, since
+ * elements from a previous round may be stale.
+ *
+ * Keys are the [XType]s themselves rather than equivalent types, since equivalent types may still
+ * differ in ways that matter to the generated code, such as Kotlin nullability.
+ */
+@OptIn(ExperimentalProcessingApi::class)
+class CompilerCache(val env: XProcessingEnv) {
+
+  private val types = HashMap<XType, CompilerType>()
+  private val classes = HashMap<XType, CompilerClass>()
+
+  fun type(mirror: XType): CompilerType =
+      types.getOrPut(mirror) { CompilerType(env, mirror, this) }
+
+  fun compilerClass(declaredType: XType): CompilerClass =
+      classes.getOrPut(declaredType) { CompilerClass(env, declaredType, this) }
+}
@@ -32,18 +32,25 @@ import motif.ast.IrModifier
 import motif.ast.IrType
 
 @OptIn(ExperimentalProcessingApi::class)
-class CompilerClass(override val env: XProcessingEnv, val declaredType: XType) : IrUtil, IrClass {
+class CompilerClass(
+    override val env: XProcessingEnv,
+    val declaredType: XType,
+    override val cache: CompilerCache = CompilerCache(env),
+) : IrUtil, IrClass {
 
   private val typeElement: XTypeElement by lazy { declaredType.typeElement as XTypeElement }
 
-  override val type: IrType by lazy { CompilerType(env, declaredType) }
+  override val type: IrType by lazy { cache.type(declaredType) }
 
   override val supertypes: List<IrType> by lazy {
-    env.typeUtils.directSupertypes(declaredType).map { CompilerType(env, it) }
+    env.typeUtils.directSupertypes(declaredType).map { cache.type(it) }
   }
 
+  override val rawQualifiedName: String
+    get() = typeElement.qualifiedName
+
   override val typeArguments: List<IrType> by lazy {
-    declaredType.typeArguments.map { CompilerType(env, it) }
+    declaredType.typeArguments.map { cache.type(it) }
   }
 
   override val kind: IrClass.Kind by lazy {
@@ -61,7 +68,7 @@ class CompilerClass(override val env: XProcessingEnv, val declaredType: XType) :
     (methods + nonPrivateStaticMethods)
         .map { executableElement ->
           val executableType = executableElement.asMemberOf(declaredType) as XExecutableType
-          CompilerMethod(env, declaredType, executableType, executableElement)
+          CompilerMethod(env, declaredType, executableType, executableElement, cache)
         }
         .distinctBy {
           "${it.annotations.joinToString(separator = ",")} ${it.name}${it.parameters.map { it.type.toString() }.joinToString(separator = ",", prefix = "(", postfix = ")")}"
@@ -82,7 +89,7 @@ class CompilerClass(override val env: XProcessingEnv, val declaredType: XType) :
         }
     constructors.map { executableElement ->
       val executableType = executableElement.asMemberOf(declaredType)
-      CompilerMethod(env, declaredType, executableType, executableElement)
+      CompilerMethod(env, declaredType, executableType, executableElement, cache)
     }
   }
 
@@ -93,7 +100,7 @@ class CompilerClass(override val env: XProcessingEnv, val declaredType: XType) :
             "Could not resolve type for nested class: ${typeElement.qualifiedName}",
         )
       }
-      CompilerClass(env, typeElement.type)
+      cache.compilerClass(typeElement.type)
     }
   }
 
@@ -109,7 +116,7 @@ class CompilerClass(override val env: XProcessingEnv, val declaredType: XType) :
     val fields: MutableList<IrField> =
         typeElement
             .getDeclaredFields()
-            .map { variableElement -> CompilerField(env, variableElement) }
+            .map { variableElement -> CompilerField(env, variableElement, cache) }
             .toMutableList()
 
     val superclass = typeElement.superType
@@ -26,9 +26,10 @@ import motif.ast.IrType
 class CompilerField(
     override val env: XProcessingEnv,
     private val variableElement: XVariableElement,
+    override val cache: CompilerCache = CompilerCache(env),
 ) : IrUtil, IrField {
 
-  override val type: IrType by lazy { CompilerType(env, variableElement.type) }
+  override val type: IrType by lazy { cache.type(variableElement.type) }
 
   override val name: String by lazy { variableElement.name }
 
@@ -39,6 +39,7 @@ class CompilerMethod(
     val owner: XType,
     val type: XExecutableType,
     val element: XExecutableElement,
+    override val cache: CompilerCache = CompilerCache(env),
 ) : IrMethod, IrUtil {
 
   override val name: String =
@@ -60,7 +61,9 @@ class CompilerMethod(
   override val parameters: List<CompilerMethodParameter> by lazy {
     val parameters = element.parameters
     val types = type.parameterTypes
-    (0 until parameters.size).map { i -> CompilerMethodParameter(env, parameters[i], types[i]) }
+    (0 until parameters.size).map { i ->
+      CompilerMethodParameter(env, parameters[i], types[i], cache)
+    }
   }
 
   override val returnType: IrType by lazy {
@@ -68,9 +71,9 @@ class CompilerMethod(
         when (type) {
           is XMethodType -> {
             val returnXType = type.returnType.makeNonNullByDefault()
-            CompilerType(env, returnXType)
+            cache.type(returnXType)
           }
-          is XConstructorType -> CompilerType(env, owner)
+          is XConstructorType -> cache.type(owner)
           else -> throw IllegalStateException("Compiler method has no return type")
         }
     returnType
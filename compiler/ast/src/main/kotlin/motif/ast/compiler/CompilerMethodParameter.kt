@@ -28,10 +28,11 @@ class CompilerMethodParameter(
     override val env: XProcessingEnv,
     val element: XVariableElement,
     val typeMirror: XType,
+    override val cache: CompilerCache = CompilerCache(env),
 ) : IrUtil, IrParameter {
 
   override val type: IrType by lazy {
-    return@lazy CompilerType(env, typeMirror)
+    return@lazy cache.type(typeMirror)
   }
 
   override val name: String by lazy { element.name }
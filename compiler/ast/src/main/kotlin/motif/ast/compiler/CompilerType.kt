@@ -19,9 +19,8 @@ import androidx.room.compiler.processing.ExperimentalProcessingApi
 import androidx.room.compiler.processing.XProcessingEnv
 import androidx.room.compiler.processing.XType
 import androidx.room.compiler.processing.isVoid
-import com.uber.xprocessing.ext.hash
+import com.uber.xprocessing.ext.XTypeKey
 import com.uber.xprocessing.ext.isDeclaredType
-import com.uber.xprocessing.ext.isEquivalent
 import com.uber.xprocessing.ext.isInternal
 import com.uber.xprocessing.ext.isPrimitive
 import com.uber.xprocessing.ext.makeNonNullByDefault
@@ -33,10 +32,16 @@ import motif.ast.IrClass
 import motif.ast.IrType
 
 @OptIn(ExperimentalProcessingApi::class)
-class CompilerType(private val env: XProcessingEnv, mirror: XType) : IrType {
+class CompilerType(
+    private val env: XProcessingEnv,
+    mirror: XType,
+    private val cache: CompilerCache = CompilerCache(env),
+) : IrType {
 
   val mirror = mirror.makeNonNullByDefault()
 
+  private val key = XTypeKey(this.mirror, env)
+
   fun isInterface(): Boolean = IrClass.Kind.INTERFACE == resolveClass()?.kind
 
   override val qualifiedName: String by lazy { mirror.qualifiedName(env) }
@@ -46,7 +51,7 @@ class CompilerType(private val env: XProcessingEnv, mirror: XType) : IrType {
   override val isPrimitive: Boolean by lazy { mirror.isPrimitive() }
 
   override fun resolveClass(): IrClass? =
-      if (!mirror.isDeclaredType()) null else CompilerClass(env, mirror)
+      if (!mirror.isDeclaredType()) null else cache.compilerClass(mirror)
 
   override fun isAssignableTo(type: IrType): Boolean {
     val baseMirror = (type as CompilerType).mirror
@@ -101,16 +106,16 @@ class CompilerType(private val env: XProcessingEnv, mirror: XType) : IrType {
     if (javaClass != other?.javaClass) return false
 
     other as CompilerType
-    if (!mirror.isEquivalent(other.mirror, env)) return false
+    if (key != other.key) return false
 
     return true
   }
 
-  override fun hashCode(): Int = mirror.hash()
+  override fun hashCode(): Int = key.hashCode()
 
   override fun toString(): String = mirror.toString()
 
-  fun mapToJavaType(): CompilerType = CompilerType(env, mirror.mapToJavaType(env))
+  fun mapToJavaType(): CompilerType = CompilerType(env, mirror.mapToJavaType(env), cache)
 
-  fun mapToKotlinType(): CompilerType = CompilerType(env, mirror.mapToKotlinType(env))
+  fun mapToKotlinType(): CompilerType = CompilerType(env, mirror.mapToKotlinType(env), cache)
 }
@@ -27,8 +27,10 @@ interface IrUtil {
 
   val env: XProcessingEnv
 
+  val cache: CompilerCache
+
   fun XElement.irModifiers(): Set<IrModifier> = modifierNames.map { IrModifier.valueOf(it) }.toSet()
 
   fun XElement.irAnnotations(): List<IrAnnotation> =
-      getAllAnnotations().map { CompilerAnnotation(env, it) }
+      getAllAnnotations().map { CompilerAnnotation(env, it, cache) }
 }
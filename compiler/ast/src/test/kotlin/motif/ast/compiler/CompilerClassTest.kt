@@ -176,6 +176,48 @@ class XCompilerClassTest(
     }
   }
 
+  @Test
+  fun testResolveClassIsCached() {
+    createClass(
+        "test.Foo",
+        """
+          package test;
+
+          interface Bar {}
+
+          class Foo implements Bar {}
+      """
+            .trimIndent(),
+    ) { fooClass ->
+      val barType = fooClass.supertypes.single { it.qualifiedName == "test.Bar" }
+      val barClass = barType.resolveClass()
+      assertThat(barClass).isNotNull()
+      assertThat(barType.resolveClass()).isSameInstanceAs(barClass)
+      assertThat(barClass!!.methods).isSameInstanceAs(barType.resolveClass()!!.methods)
+    }
+  }
+
+  @Test
+  fun testCacheIsOwnedByCreator() {
+    createClass(
+        "test.Foo",
+        """
+          package test;
+
+          interface Bar {}
+
+          class Foo implements Bar {}
+      """
+            .trimIndent(),
+    ) { fooClass ->
+      val barType = fooClass.supertypes.single { it.qualifiedName == "test.Bar" } as CompilerType
+      val barClass = barType.resolveClass()
+      assertThat(fooClass.cache.compilerClass(barType.mirror)).isSameInstanceAs(barClass)
+      assertThat(CompilerCache(fooClass.env).compilerClass(barType.mirror))
+          .isNotSameInstanceAs(barClass)
+    }
+  }
+
   private fun createClass(
       qualifiedName: String,
       @Language("JAVA") text: String,
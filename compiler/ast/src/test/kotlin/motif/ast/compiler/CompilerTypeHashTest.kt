@@ -19,6 +19,7 @@ import androidx.room.compiler.processing.ExperimentalProcessingApi
 import androidx.room.compiler.processing.util.Source
 import androidx.room.compiler.processing.util.runKspTest
 import com.google.common.truth.Truth.assertThat
+import com.uber.xprocessing.ext.XTypeKey
 import com.uber.xprocessing.ext.hash
 import com.uber.xprocessing.ext.isEquivalent
 import org.junit.Test
@@ -88,4 +89,131 @@ class CompilerTypeHashTest {
       invocation.assertCompilationResult { hasErrorCount(0) }
     }
   }
+
+  @Test
+  fun cachedKeysMatchEquivalence() {
+    val sources =
+        listOf(
+            Source.kotlin(
+                "test/Name.kt",
+                """
+                package test
+                annotation class Name(val value: String)
+                """
+                    .trimIndent(),
+            ),
+            Source.java(
+                "test.JavaUser",
+                """
+                package test;
+                import java.util.List;
+                public class JavaUser {
+                    @Name("a") public List<String> a() { return null; }
+                    @Name("b") public List<Integer> b() { return null; }
+                }
+                """
+                    .trimIndent(),
+            ),
+            Source.kotlin(
+                "test/KotlinUser.kt",
+                """
+                package test
+                class KotlinUser {
+                    @Name("a") fun a(): List<String> = emptyList()
+                    @Name("b") fun b(): List<Int> = emptyList()
+                }
+                """
+                    .trimIndent(),
+            ),
+        )
+
+    runKspTest(sources) { invocation ->
+      val env = invocation.processingEnv
+
+      val methods =
+          listOf("test.JavaUser", "test.KotlinUser").flatMap { className ->
+            env.findTypeElement(className)!!.getDeclaredMethods().filter {
+              it.name == "a" || it.name == "b"
+            }
+          }
+
+      methods.forEach { lhs ->
+        methods.forEach { rhs ->
+          val lhsType = CompilerType(env, lhs.returnType)
+          val rhsType = CompilerType(env, rhs.returnType)
+          assertThat(lhsType == rhsType)
+              .isEqualTo(lhsType.mirror.isEquivalent(rhsType.mirror, env))
+          assertThat(XTypeKey(lhs.returnType, env).hashCode()).isEqualTo(lhs.returnType.hash())
+
+          val lhsAnnotation = CompilerAnnotation(env, lhs.getAllAnnotations().single())
+          val rhsAnnotation = CompilerAnnotation(env, rhs.getAllAnnotations().single())
+          assertThat(lhsAnnotation == rhsAnnotation)
+              .isEqualTo(lhsAnnotation.mirror.isEquivalent(rhsAnnotation.mirror, env))
+        }
+      }
+
+      invocation.assertCompilationResult { hasErrorCount(0) }
+    }
+  }
+
+  @Test
+  fun wildcardAndNonExistentKeysHashLikeTheirEquivalents() {
+    val sources =
+        listOf(
+            Source.java(
+                "test.JavaUser",
+                """
+                package test;
+                import java.util.List;
+                public class JavaUser {
+                    public List<? extends CharSequence> wildcard() { return null; }
+                    public List<CharSequence> exact() { return null; }
+                    public Missing missing() { return null; }
+                    public List<Missing> missingList() { return null; }
+                }
+                """
+                    .trimIndent(),
+            ),
+            Source.kotlin(
+                "test/KotlinUser.kt",
+                """
+                package test
+                class KotlinUser {
+                    fun wildcard(): List<out CharSequence> = emptyList()
+                    fun exact(): List<CharSequence> = emptyList()
+                    fun missing(): Missing = TODO()
+                    fun missingList(): List<Missing> = emptyList()
+                }
+                """
+                    .trimIndent(),
+            ),
+        )
+
+    runKspTest(sources) { invocation ->
+      val env = invocation.processingEnv
+
+      val types =
+          listOf("test.JavaUser", "test.KotlinUser").flatMap { className ->
+            env.findTypeElement(className)!!.getDeclaredMethods().map { it.returnType }
+          }
+      val javaWildcard = types.first()
+      val javaExact = types[1]
+      assertThat(javaWildcard.isEquivalent(javaExact, env)).isTrue()
+      assertThat(XTypeKey(javaWildcard, env)).isEqualTo(XTypeKey(javaExact, env))
+      assertThat(types.count { "NonExistentClass" in it.typeName.toString() }).isAtLeast(2)
+
+      types.forEach { lhs ->
+        types.forEach { rhs ->
+          val lhsKey = XTypeKey(lhs, env)
+          val rhsKey = XTypeKey(rhs, env)
+          assertThat(lhsKey == rhsKey).isEqualTo(lhs.isEquivalent(rhs, env))
+          if (lhsKey == rhsKey) {
+            assertThat(lhsKey.hashCode()).isEqualTo(rhsKey.hashCode())
+          }
+        }
+      }
+
+      invocation.assertCompilationResult { compilationDidFail() }
+    }
+  }
 }
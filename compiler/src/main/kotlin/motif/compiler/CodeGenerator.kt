@@ -15,14 +15,18 @@
  */
 package motif.compiler
 
+import androidx.room.compiler.processing.XFiler
 import androidx.room.compiler.processing.XProcessingEnv
+import androidx.room.compiler.processing.compat.XConverters.toJavac
 import androidx.room.compiler.processing.writeTo
-import java.io.File
+import com.squareup.kotlinpoet.FileSpec
+import java.nio.file.Paths
 import motif.core.ResolvedGraph
+import motif.internal.ScopeRegistry
 
 object CodeGenerator {
 
-  fun generate(env: XProcessingEnv, graph: ResolvedGraph, mode: OutputMode?): List<String> {
+  fun generate(env: XProcessingEnv, graph: ResolvedGraph, mode: OutputMode?): GeneratedCode {
     val kaptKotlinGeneratedDir = env.options[OPTION_KAPT_KOTLIN_GENERATED]
     return if (mode == OutputMode.JAVA) {
       generateJava(env, graph)
@@ -33,43 +37,84 @@ object CodeGenerator {
                 "requires -A$OPTION_KAPT_KOTLIN_GENERATED to be set.",
         )
       }
-      generateKotlin(env, graph, kaptKotlinGeneratedDir)
+      generateKotlin(env, graph)
     } else {
       if (env.backend == XProcessingEnv.Backend.KSP) {
-        generateKotlin(env, graph, kaptKotlinGeneratedDir)
+        generateKotlin(env, graph)
       } else {
         if (kaptKotlinGeneratedDir == null) {
           generateJava(env, graph)
         } else {
-          generateKotlin(env, graph, kaptKotlinGeneratedDir)
+          generateKotlin(env, graph)
         }
       }
     }
   }
 
-  private fun generateJava(env: XProcessingEnv, graph: ResolvedGraph): List<String> =
-      ScopeImplFactory.create(env, graph)
-          .map { scopeImpl -> JavaCodeGenerator.generate(scopeImpl) }
-          .onEach { javaFile -> javaFile.writeTo(env.filer) }
-          .map { "${it.packageName}.${it.typeSpec.name}" }
+  /**
+   * Registers every generated [ScopeRegistryImpl] as a [ScopeRegistry] service so that
+   * [motif.ScopeFactory] can discover them at runtime.
+   */
+  fun generateScopeRegistryServices(env: XProcessingEnv, scopeRegistryNames: List<String>) {
+    if (scopeRegistryNames.isEmpty()) return
+    val filePath = Paths.get("META-INF", "services", ScopeRegistry::class.java.name)
+    val outputStream = env.filer.writeResource(filePath, emptyList(), XFiler.Mode.Aggregating)
+    outputStream.bufferedWriter().use { writer ->
+      scopeRegistryNames.forEach { name -> writer.appendLine(name) }
+    }
+  }
 
-  private fun generateKotlin(
-      env: XProcessingEnv,
-      graph: ResolvedGraph,
-      kaptKotlinGeneratedDir: String? = null,
-  ): List<String> =
-      ScopeImplFactory.create(env, graph)
-          .map { scopeImpl -> KotlinCodeGenerator.generate(scopeImpl) }
-          .onEach { fileSpec ->
-            if (kaptKotlinGeneratedDir != null) {
-              fileSpec.writeTo(File(kaptKotlinGeneratedDir))
-            } else {
-              fileSpec.writeTo(env.filer)
-            }
-          }
-          .map { "${it.packageName}.${it.name}" }
+  private fun generateJava(env: XProcessingEnv, graph: ResolvedGraph): GeneratedCode {
+    val scopeImpls = ScopeImplFactory.create(env, graph)
+    val scopeImplNames =
+        scopeImpls
+            .map { scopeImpl -> JavaCodeGenerator.generate(scopeImpl) }
+            .onEach { javaFile -> javaFile.writeTo(env.filer, XFiler.Mode.Aggregating) }
+            .map { "${it.packageName}.${it.typeSpec.name}" }
+    val scopeRegistryName =
+        ScopeRegistryImpl.create(scopeImpls)?.let { scopeRegistry ->
+          val javaFile = JavaCodeGenerator.generate(scopeRegistry)
+          javaFile.writeTo(env.filer, XFiler.Mode.Aggregating)
+          "${javaFile.packageName}.${javaFile.typeSpec.name}"
+        }
+    return GeneratedCode(scopeImplNames, scopeRegistryName)
+  }
+
+  private fun generateKotlin(env: XProcessingEnv, graph: ResolvedGraph): GeneratedCode {
+    val scopeImpls = ScopeImplFactory.create(env, graph)
+    val scopeImplNames =
+        scopeImpls
+            .map { scopeImpl -> KotlinCodeGenerator.generate(scopeImpl) }
+            .onEach { fileSpec -> fileSpec.write(env) }
+            .map { "${it.packageName}.${it.name}" }
+    val scopeRegistryName =
+        ScopeRegistryImpl.create(scopeImpls)?.let { scopeRegistry ->
+          val fileSpec = KotlinCodeGenerator.generate(scopeRegistry)
+          fileSpec.write(env)
+          "${fileSpec.packageName}.${fileSpec.name}"
+        }
+    return GeneratedCode(scopeImplNames, scopeRegistryName)
+  }
+
+  private fun FileSpec.write(env: XProcessingEnv) {
+    if (env.backend == XProcessingEnv.Backend.JAVAC) {
+      // Under kapt, write through the javac Filer into kapt's source output rather than into
+      // kapt.kotlin.generated. Kapt only tracks files created by the Filer, so this is what lets
+      // incremental builds remove stale ScopeImpls. Kotlin compiles the .kt files of both.
+      writeTo(env.toJavac().filer)
+    } else {
+      writeTo(env.filer, XFiler.Mode.Aggregating)
+    }
+  }
 }
 
+/**
+ * @property scopeImplNames Qualified names of the ScopeImpls generated in this round.
+ * @property scopeRegistryName Qualified name of the [ScopeRegistryImpl] generated in this round, if
+ *   any.
+ */
+class GeneratedCode(val scopeImplNames: List<String>, val scopeRegistryName: String?)
+
 enum class OutputMode {
   JAVA, // Generate pure Java implementation
   KOTLIN, // Generate pure Kotlin implementation
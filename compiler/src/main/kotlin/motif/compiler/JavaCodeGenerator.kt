@@ -16,6 +16,7 @@
 package motif.compiler
 
 import androidx.room.compiler.processing.XProcessingEnv
+import androidx.room.compiler.processing.addOriginatingElement
 import androidx.room.compiler.processing.compat.XConverters.toJavac
 import com.squareup.javapoet.AnnotationSpec
 import com.squareup.javapoet.CodeBlock
@@ -23,13 +24,23 @@ import com.squareup.javapoet.FieldSpec
 import com.squareup.javapoet.JavaFile
 import com.squareup.javapoet.MethodSpec
 import com.squareup.javapoet.ParameterSpec
+import com.squareup.javapoet.ParameterizedTypeName
 import com.squareup.javapoet.TypeSpec
+import com.squareup.javapoet.WildcardTypeName
 import com.squareup.kotlinpoet.javapoet.KotlinPoetJavaPoetPreview
 import com.uber.xprocessing.ext.isKotlinSource
 import com.uber.xprocessing.ext.withRawTypeFix
+import java.lang.ref.SoftReference
+import java.util.concurrent.Executor
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater
 import javax.lang.model.element.Modifier
 import javax.lang.model.type.DeclaredType
+import motif.internal.Disposables
+import motif.internal.DoubleCheckLazy
 import motif.internal.None
+import motif.internal.ScopeRegistry
+import motif.internal.WarmUp
 
 object JavaCodeGenerator {
 
@@ -38,6 +49,11 @@ object JavaCodeGenerator {
     return JavaFile.builder(scopeImpl.className.j.packageName(), typeSpec).build()
   }
 
+  fun generate(scopeRegistry: ScopeRegistryImpl): JavaFile {
+    val typeSpec: TypeSpec = scopeRegistry.spec()
+    return JavaFile.builder(scopeRegistry.className.j.packageName(), typeSpec).build()
+  }
+
   private fun ScopeImpl.spec(): TypeSpec =
       TypeSpec.classBuilder(className.j)
           .apply {
@@ -46,7 +62,11 @@ object JavaCodeGenerator {
             addSuperinterface(superClassName.j)
             objectsField?.let { addField(it.spec()) }
             addField(dependenciesField.spec())
-            cacheFields.forEach { addField(it.spec(useNullFieldInitialization)) }
+            cacheFields.forEach { addFields(it.specs(className, useNullFieldInitialization)) }
+            dependencyCacheFields.forEach { addField(it.spec()) }
+            ownerThreadField?.let { addField(it.spec()) }
+            closedField?.let { addField(it.spec()) }
+            childDependenciesFields.forEach { addField(it.spec()) }
             addMethod(constructor.spec())
             alternateConstructor?.let { addMethod(it.spec()) }
             accessMethodImpls.forEach { addMethod(it.spec()) }
@@ -54,8 +74,11 @@ object JavaCodeGenerator {
             addMethod(scopeProviderMethod.spec())
             factoryProviderMethods.forEach { addMethods(it.specs(useNullFieldInitialization)) }
             dependencyProviderMethods.forEach { addMethod(it.spec()) }
+            warmUpMethod?.let { addMethod(it.spec()) }
+            closeMethod?.let { addMethod(it.spec(useNullFieldInitialization)) }
             dependencies?.let { addType(it.spec()) }
             objectsImpl?.let { addType(it.spec()) }
+            originatingElements.forEach { addOriginatingElement(it) }
           }
           .build()
 
@@ -80,14 +103,80 @@ object JavaCodeGenerator {
   private fun DependenciesField.spec(): FieldSpec =
       FieldSpec.builder(dependenciesClassName.j, name, Modifier.PRIVATE, Modifier.FINAL).build()
 
-  private fun CacheField.spec(useNullFieldInitialization: Boolean): FieldSpec =
-      if (useNullFieldInitialization) {
-        FieldSpec.builder(Object::class.java, name, Modifier.PRIVATE, Modifier.VOLATILE).build()
-      } else {
-        FieldSpec.builder(Object::class.java, name, Modifier.PRIVATE, Modifier.VOLATILE)
-            .initializer("\$T.NONE", None::class.java)
-            .build()
-      }
+  private fun CacheField.specs(
+      scopeImplClassName: ClassName,
+      useNullFieldInitialization: Boolean,
+  ): List<FieldSpec> {
+    val cacheFieldSpec =
+        if (isSoftReference) {
+          FieldSpec.builder(softReferenceTypeName, name, Modifier.PRIVATE)
+              .apply { if (lock !is CacheLock.None) addModifiers(Modifier.VOLATILE) }
+              .build()
+        } else {
+          FieldSpec.builder(Object::class.java, name, Modifier.PRIVATE)
+              .apply {
+                if (lock !is CacheLock.None) {
+                  addModifiers(Modifier.VOLATILE)
+                }
+                if (!useNullFieldInitialization) {
+                  initializer("\$T.NONE", None::class.java)
+                }
+              }
+              .build()
+        }
+    return when (lock) {
+      is CacheLock.Field -> listOf(cacheFieldSpec, lock.spec())
+      is CacheLock.Updater -> listOf(cacheFieldSpec, lock.spec(scopeImplClassName, name))
+      is CacheLock.Scope,
+      is CacheLock.None -> listOf(cacheFieldSpec)
+    }
+  }
+
+  private fun OwnerThreadField.spec(): FieldSpec =
+      FieldSpec.builder(Thread::class.java, name, Modifier.PRIVATE, Modifier.FINAL)
+          .initializer("\$T.currentThread()", Thread::class.java)
+          .build()
+
+  private fun ClosedField.spec(): FieldSpec =
+      FieldSpec.builder(
+              com.squareup.javapoet.TypeName.BOOLEAN,
+              name,
+              Modifier.PRIVATE,
+              Modifier.VOLATILE,
+          )
+          .build()
+
+  private fun CacheLock.Field.spec(): FieldSpec =
+      FieldSpec.builder(Object::class.java, name, Modifier.PRIVATE, Modifier.FINAL)
+          .initializer("new \$T()", Object::class.java)
+          .build()
+
+  private fun CacheLock.Updater.spec(
+      scopeImplClassName: ClassName,
+      cacheFieldName: String,
+  ): FieldSpec {
+    val updaterTypeName =
+        ParameterizedTypeName.get(
+            com.squareup.javapoet.ClassName.get(AtomicReferenceFieldUpdater::class.java),
+            scopeImplClassName.j,
+            com.squareup.javapoet.ClassName.OBJECT,
+        )
+    return FieldSpec.builder(
+            updaterTypeName,
+            name,
+            Modifier.PRIVATE,
+            Modifier.STATIC,
+            Modifier.FINAL,
+        )
+        .initializer(
+            "\$T.newUpdater(\$T.class, \$T.class, \$S)",
+            AtomicReferenceFieldUpdater::class.java,
+            scopeImplClassName.j,
+            Object::class.java,
+            cacheFieldName,
+        )
+        .build()
+  }
 
   private fun Constructor.spec(): MethodSpec =
       MethodSpec.constructorBuilder()
@@ -118,10 +207,28 @@ object JavaCodeGenerator {
             addModifiers(Modifier.PUBLIC)
             returns(childClassName.j)
             this@spec.parameters.forEach { addParameter(it.spec()) }
-            addStatement("return new \$T(\$L)", childImplClassName.j, childDependenciesImpl.spec())
+            val field = childDependenciesField
+            if (field == null) {
+              addStatement(
+                  "return new \$T(\$L)",
+                  childImplClassName.j,
+                  childDependenciesImpl.spec(),
+              )
+            } else {
+              val dependenciesTypeName = field.childDependenciesClassName.j
+              addStatement("\$T \$N = this.\$N", dependenciesTypeName, field.name, field.name)
+              beginControlFlow("if (\$N == null)", field.name)
+              addStatement("\$N = \$L", field.name, childDependenciesImpl.spec())
+              addStatement("this.\$N = \$N", field.name, field.name)
+              endControlFlow()
+              addStatement("return new \$T(\$N)", childImplClassName.j, field.name)
+            }
           }
           .build()
 
+  private fun ChildDependenciesField.spec(): FieldSpec =
+      FieldSpec.builder(childDependenciesClassName.j, name, Modifier.PRIVATE).build()
+
   @OptIn(KotlinPoetJavaPoetPreview::class)
   private fun ChildDependenciesImpl.spec(): TypeSpec {
     val isKotlinDepInterface = env.findTypeElement(childDependenciesClassName.j).isKotlinSource(env)
@@ -172,6 +279,7 @@ object JavaCodeGenerator {
     val primarySpec =
         MethodSpec.methodBuilder(name)
             .returns(returnTypeName.j)
+            .apply { closedField?.let { addCode(it.checkSpec()) } }
             .addStatement(body.spec(useNullFieldInitialization))
             .build()
     val spreadSpecs = spreadProviderMethods.map { it.spec() }
@@ -181,11 +289,73 @@ object JavaCodeGenerator {
   private fun FactoryProviderMethodBody.spec(useNullFieldInitialization: Boolean): CodeBlock =
       when (this) {
         is FactoryProviderMethodBody.Cached -> spec(useNullFieldInitialization)
+        is FactoryProviderMethodBody.SoftCached -> spec()
         is FactoryProviderMethodBody.Uncached -> spec()
       }
 
+  private fun FactoryProviderMethodBody.SoftCached.spec(): CodeBlock {
+    val localFieldName = "_$cacheFieldName"
+    val localRefName = "_${cacheFieldName}Ref"
+    val readSpec =
+        CodeBlock.builder()
+            .add("\$N = \$N;\n", localRefName, cacheFieldName)
+            .add(
+                "\$N = \$N == null ? null : \$N.get();\n",
+                localFieldName,
+                localRefName,
+                localRefName,
+            )
+            .build()
+    val createSpec =
+        CodeBlock.builder()
+            .beginControlFlow("if (\$N == null)", localFieldName)
+            .apply { closedField?.let { add(it.checkSpec()) } }
+            .add("\$N = \$L;\n", localFieldName, instantiation.spec())
+            .add(nullCheckSpec(localFieldName))
+            .add("\$N = new \$T(\$N);\n", cacheFieldName, softReferenceTypeName, localFieldName)
+            .endControlFlow()
+            .build()
+    val lockName =
+        when (lock) {
+          is CacheLock.Scope -> "this"
+          is CacheLock.Field -> lock.name
+          is CacheLock.Updater,
+          is CacheLock.None -> null
+        }
+    return CodeBlock.builder()
+        .apply { if (lock is CacheLock.None) lock.ownerThreadField?.let { add(it.checkSpec()) } }
+        .add("\$T \$N;\n", softReferenceTypeName, localRefName)
+        .add("\$T \$N;\n", Object::class.java, localFieldName)
+        .add(readSpec)
+        .apply {
+          if (lockName == null) {
+            add(createSpec)
+          } else {
+            beginControlFlow("if (\$N == null)", localFieldName)
+            beginControlFlow("synchronized (\$L)", lockName)
+            add(readSpec)
+            add(createSpec)
+            endControlFlow()
+            endControlFlow()
+          }
+        }
+        .add("return (\$T) \$N", returnTypeName.j, localFieldName)
+        .build()
+  }
+
   private fun FactoryProviderMethodBody.Cached.spec(
       useNullFieldInitialization: Boolean,
+  ): CodeBlock =
+      when (lock) {
+        is CacheLock.Scope -> lockingSpec(useNullFieldInitialization, "this")
+        is CacheLock.Field -> lockingSpec(useNullFieldInitialization, lock.name)
+        is CacheLock.Updater -> compareAndSetSpec(useNullFieldInitialization, lock.name)
+        is CacheLock.None -> unsynchronizedSpec(useNullFieldInitialization, lock.ownerThreadField)
+      }
+
+  private fun FactoryProviderMethodBody.Cached.lockingSpec(
+      useNullFieldInitialization: Boolean,
+      lockName: String,
   ): CodeBlock {
     if (useNullFieldInitialization) {
       val localFieldName = "_$cacheFieldName"
@@ -193,17 +363,12 @@ object JavaCodeGenerator {
           // Using a local variable reduces atomic read overhead
           .add("Object $localFieldName = \$N;\n", cacheFieldName)
           .beginControlFlow("if (\$N == null)", localFieldName)
-          .beginControlFlow("synchronized (this)")
+          .beginControlFlow("synchronized (\$L)", lockName)
           .add("\$N = \$N;\n", localFieldName, cacheFieldName)
           .beginControlFlow("if (\$N == null)", localFieldName)
+          .apply { closedField?.let { add(it.checkSpec()) } }
           .add("\$N = \$L;\n", localFieldName, instantiation.spec())
-          .beginControlFlow("if (\$N == null)", localFieldName)
-          .add(
-              "throw new \$T(\$S);\n",
-              NullPointerException::class.java,
-              "Factory method cannot return null",
-          )
-          .endControlFlow()
+          .add(nullCheckSpec(localFieldName))
           .add("\$N = \$N;\n", cacheFieldName, localFieldName)
           .endControlFlow()
           .endControlFlow()
@@ -213,8 +378,9 @@ object JavaCodeGenerator {
     }
     return CodeBlock.builder()
         .beginControlFlow("if (\$N == \$T.NONE)", cacheFieldName, None::class.java)
-        .beginControlFlow("synchronized (this)")
+        .beginControlFlow("synchronized (\$L)", lockName)
         .beginControlFlow("if (\$N == \$T.NONE)", cacheFieldName, None::class.java)
+        .apply { closedField?.let { add(it.checkSpec()) } }
         .add("\$N = \$L;", cacheFieldName, instantiation.spec())
         .endControlFlow()
         .endControlFlow()
@@ -223,6 +389,118 @@ object JavaCodeGenerator {
         .build()
   }
 
+  private fun FactoryProviderMethodBody.Cached.compareAndSetSpec(
+      useNullFieldInitialization: Boolean,
+      updaterName: String,
+  ): CodeBlock {
+    val localFieldName = "_$cacheFieldName"
+    val sentinel = sentinelSpec(useNullFieldInitialization)
+    return CodeBlock.builder()
+        .add("Object $localFieldName = \$N;\n", cacheFieldName)
+        .beginControlFlow("if (\$N == \$L)", localFieldName, sentinel)
+        .add("\$N = \$L;\n", localFieldName, instantiation.spec())
+        .apply { if (useNullFieldInitialization) add(nullCheckSpec(localFieldName)) }
+        // Another thread won the race. Drop this instance so that all callers see the same one.
+        .beginControlFlow(
+            "if (!\$N.compareAndSet(this, \$L, \$N))",
+            updaterName,
+            sentinel,
+            localFieldName,
+        )
+        .apply {
+          // The losing instance was never published, so close() will not release it.
+          closedField?.let { add("\$T.dispose(\$N);\n", Disposables::class.java, localFieldName) }
+        }
+        .add("\$N = \$N;\n", localFieldName, cacheFieldName)
+        .apply {
+          closedField?.let { closedField ->
+            add(closedField.checkSpec())
+            // close() may have run before it could see this instance. Take it back and release it.
+            nextControlFlow("else if (\$N)", closedField.name)
+            beginControlFlow(
+                "if (\$N.compareAndSet(this, \$N, \$L))",
+                updaterName,
+                localFieldName,
+                sentinel,
+            )
+            add("\$T.dispose(\$N);\n", Disposables::class.java, localFieldName)
+            endControlFlow()
+            add(closedField.checkSpec())
+          }
+        }
+        .endControlFlow()
+        .endControlFlow()
+        .add("return (\$T) \$N", returnTypeName.j, localFieldName)
+        .build()
+  }
+
+  private fun FactoryProviderMethodBody.Cached.unsynchronizedSpec(
+      useNullFieldInitialization: Boolean,
+      ownerThreadField: OwnerThreadField?,
+  ): CodeBlock {
+    val localFieldName = "_$cacheFieldName"
+    val sentinel = sentinelSpec(useNullFieldInitialization)
+    return CodeBlock.builder()
+        .apply { ownerThreadField?.let { add(it.checkSpec()) } }
+        .add("Object $localFieldName = \$N;\n", cacheFieldName)
+        .beginControlFlow("if (\$N == \$L)", localFieldName, sentinel)
+        .add("\$N = \$L;\n", localFieldName, instantiation.spec())
+        .apply { if (useNullFieldInitialization) add(nullCheckSpec(localFieldName)) }
+        .add("\$N = \$N;\n", cacheFieldName, localFieldName)
+        .endControlFlow()
+        .add("return (\$T) \$N", returnTypeName.j, localFieldName)
+        .build()
+  }
+
+  private fun OwnerThreadField.checkSpec(): CodeBlock =
+      CodeBlock.builder()
+          .beginControlFlow("if (\$T.currentThread() != \$N)", Thread::class.java, name)
+          .add(
+              "throw new \$T(\$S + \$N + \$S + \$T.currentThread());\n",
+              IllegalStateException::class.java,
+              "${scopeClassName.j.simpleName()} is thread-confined to ",
+              name,
+              " but was accessed from ",
+              Thread::class.java,
+          )
+          .endControlFlow()
+          .build()
+
+  private fun ClosedField.checkSpec(): CodeBlock =
+      CodeBlock.builder()
+          .beginControlFlow("if (\$N)", name)
+          .add(
+              "throw new \$T(\$S);\n",
+              IllegalStateException::class.java,
+              "${scopeClassName.j.simpleName()} is closed.",
+          )
+          .endControlFlow()
+          .build()
+
+  private val softReferenceTypeName: com.squareup.javapoet.TypeName =
+      ParameterizedTypeName.get(
+          com.squareup.javapoet.ClassName.get(SoftReference::class.java),
+          com.squareup.javapoet.ClassName.OBJECT,
+      )
+
+  private fun sentinelSpec(useNullFieldInitialization: Boolean): CodeBlock =
+      if (useNullFieldInitialization) {
+        CodeBlock.of("null")
+      } else {
+        CodeBlock.of("\$T.NONE", None::class.java)
+      }
+
+  private fun nullCheckSpec(localFieldName: String): CodeBlock =
+      CodeBlock.builder()
+          .beginControlFlow("if (\$N == null)", localFieldName)
+          .add(
+              "throw new \$T(\$S);\n",
+              NullPointerException::class.java,
+              "Factory method cannot return null",
+          )
+          .endControlFlow()
+          .build()
+
   private fun FactoryProviderMethodBody.Uncached.spec(): CodeBlock =
       CodeBlock.of("return \$L", instantiation.spec())
 
@@ -246,10 +524,20 @@ object JavaCodeGenerator {
   private fun FactoryProviderInstantiation.Binds.spec(): CodeBlock =
       CodeBlock.of("\$N()", providerMethodName)
 
-  private fun CallProviders.spec(): String {
-    val callString = providerMethodNames.joinToString { "$it()" }
-    return "($callString)"
-  }
+  private fun CallProviders.spec(): CodeBlock =
+      CodeBlock.builder()
+          .add("(")
+          .add(CodeBlock.join(providerCalls.map { it.spec() }, ", "))
+          .add(")")
+          .build()
+
+  private fun ProviderCall.spec(): CodeBlock =
+      when (this) {
+        is ProviderCall.Instance -> CodeBlock.of("\$N()", providerMethodName)
+        is ProviderCall.Provider -> CodeBlock.of("() -> \$N()", providerMethodName)
+        is ProviderCall.Lazy ->
+            CodeBlock.of("\$T.lazy(() -> \$N())", DoubleCheckLazy::class.java, providerMethodName)
+      }
 
   private fun SpreadProviderMethod.spec(): MethodSpec =
       MethodSpec.methodBuilder(name)
@@ -257,11 +545,119 @@ object JavaCodeGenerator {
           .addStatement("return \$N().\$N()", sourceProviderMethodName, spreadMethodName)
           .build()
 
-  private fun DependencyProviderMethod.spec(): MethodSpec =
-      MethodSpec.methodBuilder(name)
-          .returns(returnTypeName.j)
+  private fun DependencyProviderMethod.spec(): MethodSpec {
+    val cacheFieldName = cacheFieldName
+    val builder = MethodSpec.methodBuilder(name).returns(returnTypeName.j)
+    if (cacheFieldName == null) {
+      return builder
           .addStatement("return \$N.\$N()", dependenciesFieldName, dependencyMethodName)
           .build()
+    }
+    val localFieldName = "_$cacheFieldName"
+    return builder
+        .addStatement("\$T \$N = \$N", returnTypeName.j, localFieldName, cacheFieldName)
+        .beginControlFlow("if (\$N == null)", localFieldName)
+        .addStatement(
+            "\$N = \$N.\$N()",
+            localFieldName,
+            dependenciesFieldName,
+            dependencyMethodName,
+        )
+        .addStatement("\$N = \$N", cacheFieldName, localFieldName)
+        .endControlFlow()
+        .addStatement("return \$N", localFieldName)
+        .build()
+  }
+
+  private fun DependencyCacheField.spec(): FieldSpec =
+      FieldSpec.builder(typeName.j, name, Modifier.PRIVATE)
+          .apply { if (isVolatile) addModifiers(Modifier.VOLATILE) }
+          .build()
+
+  private fun WarmUpMethod.spec(): MethodSpec {
+    val returnTypeName =
+        ParameterizedTypeName.get(
+            com.squareup.javapoet.ClassName.get(Future::class.java),
+            com.squareup.javapoet.ClassName.get(Void::class.java),
+        )
+    val taskSpecs = tasks.map { task -> CodeBlock.of("this::\$N", task.providerMethodName) }
+    val dependencySpecs =
+        tasks.map { task -> CodeBlock.of("{\$L}", task.dependencyIndices.joinToString()) }
+    return MethodSpec.methodBuilder(name)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(returnTypeName)
+        .addParameter(Executor::class.java, "executor")
+        .addStatement(
+            "return \$T.start(executor, new \$T[] {\$L}, new int[][] {\$L})",
+            WarmUp::class.java,
+            Runnable::class.java,
+            CodeBlock.join(taskSpecs, ", "),
+            CodeBlock.join(dependencySpecs, ", "),
+        )
+        .build()
+  }
+
+  private fun CloseMethod.spec(useNullFieldInitialization: Boolean): MethodSpec {
+    val sentinel = sentinelSpec(useNullFieldInitialization)
+    return MethodSpec.methodBuilder("close")
+        .addAnnotation(Override::class.java)
+        .addModifiers(Modifier.PUBLIC, Modifier.SYNCHRONIZED)
+        .beginControlFlow("if (\$N)", closedField.name)
+        .addStatement("return")
+        .endControlFlow()
+        .addStatement("\$N = true", closedField.name)
+        .apply {
+          cacheFields.forEach { cacheField ->
+            val cacheFieldName = cacheField.name
+            val lock = cacheField.lock
+            if (lock is CacheLock.Updater) {
+              addStatement(
+                  "\$T \$N = \$N.getAndSet(this, \$L)",
+                  Object::class.java,
+                  cacheFieldName,
+                  lock.name,
+                  sentinel,
+              )
+            } else if (cacheField.isSoftReference) {
+              val refName = "${cacheFieldName}Ref"
+              addStatement("\$T \$N", softReferenceTypeName, refName)
+              add(lock.releaseSpec(refName, cacheFieldName, CodeBlock.of("null")))
+              addStatement(
+                  "\$T \$N = \$N == null ? null : \$N.get()",
+                  Object::class.java,
+                  cacheFieldName,
+                  refName,
+                  refName,
+              )
+            } else {
+              addStatement("\$T \$N", Object::class.java, cacheFieldName)
+              add(lock.releaseSpec(cacheFieldName, cacheFieldName, sentinel))
+            }
+          }
+        }
+        .addStatement(
+            "\$T.dispose(\$L)",
+            Disposables::class.java,
+            CodeBlock.join(cacheFields.map { CodeBlock.of("\$N", it.name) }, ", "),
+        )
+        .build()
+  }
+
+  /** Moves [cacheFieldName] into [localName] and resets it under this lock. */
+  private fun CacheLock.releaseSpec(
+      localName: String,
+      cacheFieldName: String,
+      resetValue: CodeBlock,
+  ): CodeBlock {
+    // close() already holds the Scope lock.
+    val lockName = (this as? CacheLock.Field)?.name
+    return CodeBlock.builder()
+        .apply { lockName?.let { beginControlFlow("synchronized (\$N)", it) } }
+        .add("\$N = this.\$N;\n", localName, cacheFieldName)
+        .add("this.\$N = \$L;\n", cacheFieldName, resetValue)
+        .apply { lockName?.let { endControlFlow() } }
+        .build()
+  }
 
   private fun Dependencies.spec(): TypeSpec =
       TypeSpec.interfaceBuilder(className.j)
@@ -329,4 +725,38 @@ object JavaCodeGenerator {
           )
           .addStatement("throw new \$T()", UnsupportedOperationException::class.java)
           .build()
+
+  private fun ScopeRegistryImpl.spec(): TypeSpec {
+    val factoriesTypeName =
+        ParameterizedTypeName.get(
+            com.squareup.javapoet.ClassName.get(Map::class.java),
+            ParameterizedTypeName.get(
+                com.squareup.javapoet.ClassName.get(Class::class.java),
+                WildcardTypeName.subtypeOf(Object::class.java),
+            ),
+            com.squareup.javapoet.ClassName.get(ScopeRegistry.Factory::class.java),
+        )
+    val registerAllSpec =
+        MethodSpec.methodBuilder("registerAll")
+            .apply {
+              addAnnotation(Override::class.java)
+              addModifiers(Modifier.PUBLIC)
+              addParameter(factoriesTypeName, "factories")
+              entries.forEach { addStatement(it.spec()) }
+            }
+            .build()
+    return TypeSpec.classBuilder(className.j)
+        .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+        .addSuperinterface(ScopeRegistry::class.java)
+        .addMethod(registerAllSpec)
+        .build()
+  }
+
+  private fun ScopeRegistryEntry.spec(): CodeBlock =
+      CodeBlock.of(
+          "factories.put(\$T.class, dependencies -> new \$T((\$T) dependencies))",
+          scopeClassName.j,
+          scopeImplClassName.j,
+          dependenciesClassName.j,
+      )
 }
@@ -16,21 +16,38 @@
 package motif.compiler
 
 import androidx.room.compiler.processing.XProcessingEnv
+import androidx.room.compiler.processing.addOriginatingElement
+import com.squareup.kotlinpoet.ANY
 import com.squareup.kotlinpoet.AnnotationSpec
+import com.squareup.kotlinpoet.CLASS
 import com.squareup.kotlinpoet.ClassName
 import com.squareup.kotlinpoet.CodeBlock
 import com.squareup.kotlinpoet.FileSpec
 import com.squareup.kotlinpoet.FunSpec
 import com.squareup.kotlinpoet.KModifier
+import com.squareup.kotlinpoet.MUTABLE_MAP
 import com.squareup.kotlinpoet.ParameterSpec
 import com.squareup.kotlinpoet.ParameterizedTypeName
+import com.squareup.kotlinpoet.ParameterizedTypeName.Companion.parameterizedBy
 import com.squareup.kotlinpoet.PropertySpec
+import com.squareup.kotlinpoet.STAR
 import com.squareup.kotlinpoet.TypeName
 import com.squareup.kotlinpoet.TypeSpec
+import com.squareup.kotlinpoet.asClassName
 import com.squareup.kotlinpoet.asTypeName
 import com.squareup.kotlinpoet.javapoet.KotlinPoetJavaPoetPreview
 import com.squareup.kotlinpoet.javapoet.toKClassName
+import com.squareup.kotlinpoet.joinToCode
+import java.lang.ref.SoftReference
+import java.util.concurrent.Executor
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater
+import javax.inject.Provider
+import motif.internal.Disposables
+import motif.internal.DoubleCheckLazy
 import motif.internal.None
+import motif.internal.ScopeRegistry
+import motif.internal.WarmUp
 
 @OptIn(KotlinPoetJavaPoetPreview::class)
 object KotlinCodeGenerator {
@@ -40,6 +57,11 @@ object KotlinCodeGenerator {
     return FileSpec.get(scopeImpl.className.kt.packageName, typeSpec)
   }
 
+  fun generate(scopeRegistry: ScopeRegistryImpl): FileSpec {
+    val typeSpec: TypeSpec = scopeRegistry.spec()
+    return FileSpec.get(scopeRegistry.className.kt.packageName, typeSpec)
+  }
+
   private fun ScopeImpl.spec(): TypeSpec =
       TypeSpec.classBuilder(className.kt)
           .apply {
@@ -49,7 +71,11 @@ object KotlinCodeGenerator {
             addSuperinterface(superClassName.kt)
             objectsField?.let { addProperty(it.spec()) }
             addProperty(dependenciesField.spec())
-            cacheFields.forEach { addProperty(it.spec(useNullFieldInitialization)) }
+            cacheFields.forEach { addProperties(it.specs(useNullFieldInitialization)) }
+            dependencyCacheFields.forEach { addProperty(it.spec()) }
+            ownerThreadField?.let { addProperty(it.spec()) }
+            closedField?.let { addProperty(it.spec()) }
+            childDependenciesFields.forEach { addProperty(it.spec()) }
             primaryConstructor(constructor.spec())
             alternateConstructor?.let { addFunction(it.spec()) }
             accessMethodImpls
@@ -62,11 +88,24 @@ object KotlinCodeGenerator {
             addFunction(scopeProviderMethod.spec())
             factoryProviderMethods.forEach { addFunctions(it.specs(useNullFieldInitialization)) }
             dependencyProviderMethods.forEach { addFunction(it.spec()) }
+            warmUpMethod?.let { addFunction(it.spec()) }
+            closeMethod?.let { addFunction(it.spec(useNullFieldInitialization)) }
             dependencies?.let { addType(it.spec()) }
             objectsImpl?.let { addType(it.spec()) }
+            cacheUpdatersSpec()?.let { addType(it) }
+            originatingElements.forEach { addOriginatingElement(it) }
           }
           .build()
 
+  private fun ScopeImpl.cacheUpdatersSpec(): TypeSpec? {
+    val updaterSpecs =
+        cacheFields.mapNotNull { cacheField ->
+          (cacheField.lock as? CacheLock.Updater)?.spec(className, cacheField.name)
+        }
+    if (updaterSpecs.isEmpty()) return null
+    return TypeSpec.companionObjectBuilder().addProperties(updaterSpecs).build()
+  }
+
   private fun ScopeImplAnnotation.spec(): AnnotationSpec =
       AnnotationSpec.builder(motif.ScopeImpl::class)
           .apply {
@@ -97,20 +136,66 @@ object KotlinCodeGenerator {
           .initializer(name)
           .build()
 
-  private fun CacheField.spec(useNullFieldInitialization: Boolean): PropertySpec =
-      if (useNullFieldInitialization) {
-        PropertySpec.builder(name, Any::class.asTypeName().copy(true), KModifier.PRIVATE)
-            .mutable(true)
-            .addAnnotation(Volatile::class)
-            .initializer("null")
-            .build()
-      } else {
-        PropertySpec.builder(name, Any::class, KModifier.PRIVATE)
-            .mutable(true)
-            .addAnnotation(Volatile::class)
-            .initializer("%T.NONE", None::class)
-            .build()
-      }
+  private fun CacheField.specs(useNullFieldInitialization: Boolean): List<PropertySpec> {
+    val cacheFieldSpec =
+        if (isSoftReference) {
+          PropertySpec.builder(name, softReferenceTypeName.copy(true), KModifier.PRIVATE)
+              .mutable(true)
+              .initializer("null")
+        } else if (useNullFieldInitialization) {
+          PropertySpec.builder(name, Any::class.asTypeName().copy(true), KModifier.PRIVATE)
+              .mutable(true)
+              .initializer("null")
+        } else {
+          PropertySpec.builder(name, Any::class, KModifier.PRIVATE)
+              .mutable(true)
+              .initializer("%T.NONE", None::class)
+        }
+    if (lock !is CacheLock.None) {
+      cacheFieldSpec.addAnnotation(Volatile::class)
+    }
+    return when (lock) {
+      is CacheLock.Field -> listOf(cacheFieldSpec.build(), lock.spec())
+      is CacheLock.Scope,
+      is CacheLock.Updater,
+      is CacheLock.None -> listOf(cacheFieldSpec.build())
+    }
+  }
+
+  private fun OwnerThreadField.spec(): PropertySpec =
+      PropertySpec.builder(name, Thread::class, KModifier.PRIVATE)
+          .initializer("%T.currentThread()", Thread::class)
+          .build()
+
+  private fun ClosedField.spec(): PropertySpec =
+      PropertySpec.builder(name, Boolean::class, KModifier.PRIVATE)
+          .addAnnotation(Volatile::class)
+          .mutable(true)
+          .initializer("false")
+          .build()
+
+  private fun CacheLock.Field.spec(): PropertySpec =
+      PropertySpec.builder(name, Any::class, KModifier.PRIVATE).initializer("Any()").build()
+
+  private fun CacheLock.Updater.spec(
+      scopeImplClassName: motif.compiler.ClassName,
+      cacheFieldName: String,
+  ): PropertySpec {
+    val updaterTypeName =
+        AtomicReferenceFieldUpdater::class
+            .asClassName()
+            .parameterizedBy(scopeImplClassName.kt, Any::class.asTypeName().copy(true))
+    return PropertySpec.builder(name, updaterTypeName, KModifier.PRIVATE)
+        .initializer(
+            "%T.newUpdater(%T::class.java, %T::class.java, %S) as %T",
+            AtomicReferenceFieldUpdater::class,
+            scopeImplClassName.kt,
+            Any::class,
+            cacheFieldName,
+            updaterTypeName,
+        )
+        .build()
+  }
 
   private fun Constructor.spec(): FunSpec =
       FunSpec.constructorBuilder()
@@ -153,11 +238,29 @@ object KotlinCodeGenerator {
           addModifiers(KModifier.PUBLIC, KModifier.OVERRIDE)
           returns(childClassName.kt)
           childMethodParameters.forEach { addParameter(it.spec()) }
-          addStatement("return %T(%L)", childImplClassName.kt, childDependenciesImpl.spec())
+          val field = childDependenciesField
+          if (field == null) {
+            addStatement("return %T(%L)", childImplClassName.kt, childDependenciesImpl.spec())
+          } else {
+            addStatement(
+                "val %N = this.%N ?: %L.also { this.%N = it }",
+                field.name,
+                field.name,
+                childDependenciesImpl.spec(),
+                field.name,
+            )
+            addStatement("return %T(%N)", childImplClassName.kt, field.name)
+          }
         }
         .build()
   }
 
+  private fun ChildDependenciesField.spec(): PropertySpec =
+      PropertySpec.builder(name, childDependenciesClassName.kt.copy(true), KModifier.PRIVATE)
+          .mutable(true)
+          .initializer("null")
+          .build()
+
   private fun ChildDependenciesImpl.spec(): TypeSpec =
       TypeSpec.anonymousClassBuilder()
           .apply {
@@ -208,6 +311,7 @@ object KotlinCodeGenerator {
         FunSpec.builder(name)
             .addModifiers(KModifier.INTERNAL)
             .returns(returnTypeName.reloadedForTypeArgs(env))
+            .apply { closedField?.let { addCode(it.checkSpec()) } }
             .addCode(body.spec(useNullFieldInitialization))
             .build()
     val spreadSpecs = spreadProviderMethods.map { it.spec() }
@@ -217,11 +321,60 @@ object KotlinCodeGenerator {
   private fun FactoryProviderMethodBody.spec(useNullFieldInitialization: Boolean): CodeBlock =
       when (this) {
         is FactoryProviderMethodBody.Cached -> spec(useNullFieldInitialization)
+        is FactoryProviderMethodBody.SoftCached -> spec()
         is FactoryProviderMethodBody.Uncached -> spec()
       }
 
+  private fun FactoryProviderMethodBody.SoftCached.spec(): CodeBlock {
+    val localFieldName = "_$cacheFieldName"
+    val createSpec =
+        CodeBlock.builder()
+            .beginControlFlow("if (%N == null)", localFieldName)
+            .apply { closedField?.let { add(it.checkSpec()) } }
+            .addStatement("val created: %T = %L", Any::class, instantiation.spec())
+            .addStatement("%N = created", localFieldName)
+            .addStatement("%N = %T(created)", cacheFieldName, SoftReference::class)
+            .endControlFlow()
+            .build()
+    val lockName =
+        when (lock) {
+          is CacheLock.Scope -> "this"
+          is CacheLock.Field -> lock.name
+          is CacheLock.Updater,
+          is CacheLock.None -> null
+        }
+    return CodeBlock.builder()
+        .apply { if (lock is CacheLock.None) lock.ownerThreadField?.let { add(it.checkSpec()) } }
+        .addStatement("var %N: %T = %N?.get()", localFieldName, ANY.copy(true), cacheFieldName)
+        .apply {
+          if (lockName == null) {
+            add(createSpec)
+          } else {
+            beginControlFlow("if (%N == null)", localFieldName)
+            beginControlFlow("synchronized (%L)", lockName)
+            addStatement("%N = %N?.get()", localFieldName, cacheFieldName)
+            add(createSpec)
+            endControlFlow()
+            endControlFlow()
+          }
+        }
+        .add("return ( %N as %T )", localFieldName, returnTypeName.reloadedForTypeArgs(env))
+        .build()
+  }
+
   private fun FactoryProviderMethodBody.Cached.spec(
       useNullFieldInitialization: Boolean,
+  ): CodeBlock =
+      when (lock) {
+        is CacheLock.Scope -> lockingSpec(useNullFieldInitialization, "this")
+        is CacheLock.Field -> lockingSpec(useNullFieldInitialization, lock.name)
+        is CacheLock.Updater -> compareAndSetSpec(useNullFieldInitialization, lock.name)
+        is CacheLock.None -> unsynchronizedSpec(useNullFieldInitialization, lock.ownerThreadField)
+      }
+
+  private fun FactoryProviderMethodBody.Cached.lockingSpec(
+      useNullFieldInitialization: Boolean,
+      lockName: String,
   ): CodeBlock {
     if (useNullFieldInitialization) {
       val localFieldName = "_$cacheFieldName"
@@ -230,9 +383,10 @@ object KotlinCodeGenerator {
               // Using a local variable reduces atomic read overhead
               .addStatement("var $localFieldName = %N;\n", cacheFieldName)
               .beginControlFlow("if (%N == null)", localFieldName)
-              .beginControlFlow("synchronized (this)")
+              .beginControlFlow("synchronized (%L)", lockName)
               .addStatement("%N = %N", localFieldName, cacheFieldName)
               .beginControlFlow("if (%N == null)", localFieldName)
+              .apply { closedField?.let { add(it.checkSpec()) } }
               .addStatement("%N = %L", localFieldName, instantiation.spec())
               .addStatement("%N = %N", cacheFieldName, localFieldName)
               .endControlFlow()
@@ -244,8 +398,9 @@ object KotlinCodeGenerator {
     }
     return CodeBlock.builder()
         .beginControlFlow("if (%N == %T.NONE)", cacheFieldName, None::class)
-        .beginControlFlow("synchronized (this)")
+        .beginControlFlow("synchronized (%L)", lockName)
         .beginControlFlow("if (%N == %T.NONE)", cacheFieldName, None::class)
+        .apply { closedField?.let { add(it.checkSpec()) } }
         .addStatement("%N=%L", cacheFieldName, instantiation.spec())
         .endControlFlow()
         .endControlFlow()
@@ -254,6 +409,100 @@ object KotlinCodeGenerator {
         .build()
   }
 
+  private fun FactoryProviderMethodBody.Cached.compareAndSetSpec(
+      useNullFieldInitialization: Boolean,
+      updaterName: String,
+  ): CodeBlock {
+    val localFieldName = "_$cacheFieldName"
+    val sentinel = sentinelSpec(useNullFieldInitialization)
+    return CodeBlock.builder()
+        .addStatement("var %N = %N", localFieldName, cacheFieldName)
+        .beginControlFlow("if (%N == %L)", localFieldName, sentinel)
+        .addStatement("%N = %L", localFieldName, instantiation.spec())
+        // Another thread won the race. Drop this instance so that all callers see the same one.
+        .beginControlFlow(
+            "if (!%N.compareAndSet(this, %L, %N))",
+            updaterName,
+            sentinel,
+            localFieldName,
+        )
+        .apply {
+          // The losing instance was never published, so close() will not release it.
+          closedField?.let { addStatement("%T.dispose(%N)", Disposables::class, localFieldName) }
+        }
+        .addStatement("%N = %N", localFieldName, cacheFieldName)
+        .apply {
+          closedField?.let { closedField ->
+            add(closedField.checkSpec())
+            // close() may have run before it could see this instance. Take it back and release it.
+            nextControlFlow("else if (%N)", closedField.name)
+            beginControlFlow(
+                "if (%N.compareAndSet(this, %N, %L))",
+                updaterName,
+                localFieldName,
+                sentinel,
+            )
+            addStatement("%T.dispose(%N)", Disposables::class, localFieldName)
+            endControlFlow()
+            add(closedField.checkSpec())
+          }
+        }
+        .endControlFlow()
+        .endControlFlow()
+        .add("return ( %N as %T )", localFieldName, returnTypeName.reloadedForTypeArgs(env))
+        .build()
+  }
+
+  private fun FactoryProviderMethodBody.Cached.unsynchronizedSpec(
+      useNullFieldInitialization: Boolean,
+      ownerThreadField: OwnerThreadField?,
+  ): CodeBlock {
+    val localFieldName = "_$cacheFieldName"
+    val sentinel = sentinelSpec(useNullFieldInitialization)
+    return CodeBlock.builder()
+        .apply { ownerThreadField?.let { add(it.checkSpec()) } }
+        .addStatement("var %N = %N", localFieldName, cacheFieldName)
+        .beginControlFlow("if (%N == %L)", localFieldName, sentinel)
+        .addStatement("%N = %L", localFieldName, instantiation.spec())
+        .addStatement("%N = %N", cacheFieldName, localFieldName)
+        .endControlFlow()
+        .add("return ( %N as %T )", localFieldName, returnTypeName.reloadedForTypeArgs(env))
+        .build()
+  }
+
+  private fun OwnerThreadField.checkSpec(): CodeBlock =
+      CodeBlock.builder()
+          .beginControlFlow("if (%T.currentThread() !== %N)", Thread::class, name)
+          .addStatement(
+              "throw %T(%P)",
+              IllegalStateException::class,
+              "${scopeClassName.kt.simpleName} is thread-confined to \$$name but was accessed " +
+                  "from \${Thread.currentThread()}",
+          )
+          .endControlFlow()
+          .build()
+
+  private fun ClosedField.checkSpec(): CodeBlock =
+      CodeBlock.builder()
+          .beginControlFlow("if (%N)", name)
+          .addStatement(
+              "throw %T(%S)",
+              IllegalStateException::class,
+              "${scopeClassName.kt.simpleName} is closed.",
+          )
+          .endControlFlow()
+          .build()
+
+  private val softReferenceTypeName: TypeName =
+      SoftReference::class.asClassName().parameterizedBy(ANY)
+
+  private fun sentinelSpec(useNullFieldInitialization: Boolean): CodeBlock =
+      if (useNullFieldInitialization) {
+        CodeBlock.of("null")
+      } else {
+        CodeBlock.of("%T.NONE", None::class)
+      }
+
   private fun motif.compiler.TypeName.reloadedForTypeArgs(env: XProcessingEnv): TypeName =
       if (kt is ParameterizedTypeName) {
         kt
@@ -287,10 +536,20 @@ object KotlinCodeGenerator {
   private fun FactoryProviderInstantiation.Binds.spec(): CodeBlock =
       CodeBlock.of("%N()", providerMethodName)
 
-  private fun CallProviders.spec(): String {
-    val callString = providerMethodNames.joinToString { "$it()" }
-    return "($callString)"
-  }
+  private fun CallProviders.spec(): CodeBlock =
+      CodeBlock.builder()
+          .add("(")
+          .add(providerCalls.map { it.spec() }.joinToCode())
+          .add(")")
+          .build()
+
+  private fun ProviderCall.spec(): CodeBlock =
+      when (this) {
+        is ProviderCall.Instance -> CodeBlock.of("%N()", providerMethodName)
+        is ProviderCall.Provider -> CodeBlock.of("%T { %N() }", Provider::class, providerMethodName)
+        is ProviderCall.Lazy ->
+            CodeBlock.of("%T.lazy { %N() }", DoubleCheckLazy::class, providerMethodName)
+      }
 
   private fun SpreadProviderMethod.spec(): FunSpec =
       FunSpec.builder(name)
@@ -304,12 +563,98 @@ object KotlinCodeGenerator {
           }
           .build()
 
-  private fun DependencyProviderMethod.spec(): FunSpec =
-      FunSpec.builder(name)
-          .addModifiers(KModifier.INTERNAL)
-          .returns(returnTypeName.kt)
+  private fun DependencyProviderMethod.spec(): FunSpec {
+    val cacheFieldName = cacheFieldName
+    val builder = FunSpec.builder(name).addModifiers(KModifier.INTERNAL).returns(returnTypeName.kt)
+    if (cacheFieldName == null) {
+      return builder
           .addStatement("return %N.%N()", dependenciesFieldName, dependencyMethodName)
           .build()
+    }
+    val localFieldName = "_$cacheFieldName"
+    return builder
+        .addStatement("var %N = %N", localFieldName, cacheFieldName)
+        .beginControlFlow("if (%N == null)", localFieldName)
+        .addStatement("%N = %N.%N()", localFieldName, dependenciesFieldName, dependencyMethodName)
+        .addStatement("%N = %N", cacheFieldName, localFieldName)
+        .endControlFlow()
+        .addStatement("return %N", localFieldName)
+        .build()
+  }
+
+  private fun DependencyCacheField.spec(): PropertySpec =
+      PropertySpec.builder(name, typeName.kt.copy(true), KModifier.PRIVATE)
+          .mutable(true)
+          .initializer("null")
+          .apply { if (isVolatile) addAnnotation(Volatile::class) }
+          .build()
+
+  private fun CloseMethod.spec(useNullFieldInitialization: Boolean): FunSpec {
+    val sentinel = sentinelSpec(useNullFieldInitialization)
+    return FunSpec.builder("close")
+        .addModifiers(KModifier.OVERRIDE)
+        .addAnnotation(Synchronized::class)
+        .beginControlFlow("if (%N)", closedField.name)
+        .addStatement("return")
+        .endControlFlow()
+        .addStatement("%N = true", closedField.name)
+        .apply {
+          cacheFields.forEach { cacheField ->
+            val cacheFieldName = cacheField.name
+            when (val lock = cacheField.lock) {
+              is CacheLock.Updater ->
+                  addStatement(
+                      "val %N = %N.getAndSet(this, %L)",
+                      cacheFieldName,
+                      lock.name,
+                      sentinel,
+                  )
+              is CacheLock.Field ->
+                  addStatement(
+                      "val %N = synchronized(%N) { %L }",
+                      cacheFieldName,
+                      lock.name,
+                      cacheField.releaseSpec(sentinel),
+                  )
+              // close() already holds the Scope lock.
+              is CacheLock.Scope,
+              is CacheLock.None ->
+                  addStatement("val %N = %L", cacheFieldName, cacheField.releaseSpec(sentinel))
+            }
+          }
+        }
+        .addStatement(
+            "%T.dispose(%L)",
+            Disposables::class,
+            cacheFields.map { CodeBlock.of("%N", it.name) }.joinToCode(),
+        )
+        .build()
+  }
+
+  /** Returns the cached object and resets the field. */
+  private fun CacheField.releaseSpec(sentinel: CodeBlock): CodeBlock =
+      if (isSoftReference) {
+        CodeBlock.of("this.%N?.get().also { this.%N = null }", name, name)
+      } else {
+        CodeBlock.of("this.%N.also { this.%N = %L }", name, name, sentinel)
+      }
+
+  private fun WarmUpMethod.spec(): FunSpec {
+    val taskSpecs =
+        tasks.map { task -> CodeBlock.of("%T { %N() }", Runnable::class, task.providerMethodName) }
+    val dependencySpecs =
+        tasks.map { task -> CodeBlock.of("intArrayOf(%L)", task.dependencyIndices.joinToString()) }
+    return FunSpec.builder(name)
+        .returns(Future::class.asClassName().parameterizedBy(Void::class.asTypeName()))
+        .addParameter("executor", Executor::class)
+        .addStatement(
+            "return %T.start(executor, arrayOf(%L), arrayOf(%L))",
+            WarmUp::class,
+            taskSpecs.joinToCode(),
+            dependencySpecs.joinToCode(),
+        )
+        .build()
+  }
 
   private fun Dependencies.spec(): TypeSpec {
     val typeSpecBuilder =
@@ -374,6 +719,35 @@ object KotlinCodeGenerator {
           .addStatement("throw %T()", UnsupportedOperationException::class)
           .build()
 
+  private fun ScopeRegistryImpl.spec(): TypeSpec {
+    val factoriesTypeName =
+        MUTABLE_MAP.parameterizedBy(
+            CLASS.parameterizedBy(STAR),
+            ScopeRegistry.Factory::class.asClassName(),
+        )
+    val registerAllSpec =
+        FunSpec.builder("registerAll")
+            .apply {
+              addModifiers(KModifier.OVERRIDE)
+              addParameter("factories", factoriesTypeName)
+              entries.forEach { addStatement("%L", it.spec()) }
+            }
+            .build()
+    return TypeSpec.classBuilder(className.kt)
+        .addSuperinterface(ScopeRegistry::class)
+        .addFunction(registerAllSpec)
+        .build()
+  }
+
+  private fun ScopeRegistryEntry.spec(): CodeBlock =
+      CodeBlock.of(
+          "factories[%T::class.java] = %T { dependencies -> %T(dependencies as %T) }",
+          scopeClassName.kt,
+          ScopeRegistry.Factory::class,
+          scopeImplClassName.kt,
+          dependenciesClassName.kt,
+      )
+
   private fun suppressAnnotationSpec(vararg names: String): AnnotationSpec =
       AnnotationSpec.builder(Suppress::class.java)
           .addMember(names.joinToString(", ") { "%S" }, *names)
@@ -23,7 +23,7 @@ import androidx.room.compiler.processing.XProcessingStep
 import androidx.room.compiler.processing.XTypeElement
 import javax.tools.Diagnostic
 import motif.Scope
-import motif.ast.compiler.CompilerClass
+import motif.ast.compiler.CompilerCache
 import motif.ast.compiler.CompilerType
 import motif.core.AlreadySatisfiedError
 import motif.core.DependencyCycleError
@@ -37,6 +37,7 @@ class MotifProcessingStep(
 ) : XProcessingStep {
   private val initialScopeNames = mutableSetOf<String>()
   private val createdScopeNames = mutableSetOf<String>()
+  private val scopeRegistryNames = mutableListOf<String>()
 
   override fun annotations() = mutableSetOf(motif.Scope::class.qualifiedName!!)
 
@@ -53,14 +54,24 @@ class MotifProcessingStep(
             ?.mapNotNull { it }
             ?.toList()
             .orEmpty()
-    val initialScopeClasses = scopeElements.map { CompilerClass(env, it.type) }
+    // Elements from earlier rounds may be stale, so each round starts with a fresh cache.
+    val cache = CompilerCache(env)
+    val initialScopeClasses = scopeElements.map { cache.compilerClass(it.type) }
     if (initialScopeClasses.isEmpty()) {
       return emptySet()
     } else {
       initialScopeNames += initialScopeClasses.map { it.qualifiedName }
     }
 
-    val graph = ResolvedGraph.create(initialScopeClasses)
+    val precompiledScopes = PrecompiledScopes(env)
+    val graph =
+        if (precompiledScopes.isEnabled) {
+          ResolvedGraph.create(initialScopeClasses) { scopeClass ->
+            precompiledScopes.findDependencies(scopeClass)
+          }
+        } else {
+          ResolvedGraph.create(initialScopeClasses)
+        }
     graphSetter(graph)
 
     val graphErrors = graph.errors
@@ -88,7 +99,9 @@ class MotifProcessingStep(
           if (env.backend == XProcessingEnv.Backend.KSP) OutputMode.KOTLIN else null
         }
 
-    createdScopeNames += CodeGenerator.generate(env, graph, mode)
+    val generatedCode = CodeGenerator.generate(env, graph, mode)
+    createdScopeNames += generatedCode.scopeImplNames
+    generatedCode.scopeRegistryName?.let { scopeRegistryNames += it }
     if (createdScopeNames.size < initialScopeNames.size) {
       val missingScopeNames = HashSet(initialScopeNames).apply { removeAll(createdScopeNames) }
       env.messager.printMessage(
@@ -106,4 +119,8 @@ class MotifProcessingStep(
 
     return emptySet()
   }
+
+  override fun processOver(env: XProcessingEnv, elementsByAnnotation: Map<String, Set<XElement>>) {
+    CodeGenerator.generateScopeRegistryServices(env, scopeRegistryNames)
+  }
 }
@@ -32,6 +32,8 @@ class NameScope(blacklist: Iterable<String> = emptySet()) {
               (type.qualifier as? CompilerAnnotation)?.mirror,
           ),
       )
+
+  fun name(base: String): String = names.unique(base)
 }
 
 private class UniqueNameSet(blacklist: Iterable<String>) {
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.compiler
+
+import androidx.room.compiler.processing.XProcessingEnv
+import motif.ast.IrClass
+import motif.ast.compiler.CompilerClass
+
+/**
+ * Finds the Dependencies class of Scopes whose ScopeImpl was generated by an earlier compilation or
+ * an earlier processing round so that they can be resolved as [motif.models.PrecompiledScope]s.
+ *
+ * Only enabled with [OPTION_STUB_PRECOMPILED_SCOPES]. The Dependencies class is read from the
+ * [motif.ScopeImpl] annotation of the existing ScopeImpl, which works under both javac and KSP.
+ */
+class PrecompiledScopes(private val env: XProcessingEnv) {
+
+  val isEnabled: Boolean = env.options[OPTION_STUB_PRECOMPILED_SCOPES]?.toBoolean() ?: false
+
+  fun findDependencies(scopeClass: IrClass): IrClass? {
+    if (!isEnabled) return null
+    val compilerClass = scopeClass as? CompilerClass ?: return null
+    val scopeClassName = TypeName.get(compilerClass.declaredType).className
+    val scopeImplClassName = ScopeImplFactory.scopeImplClassName(scopeClassName)
+    val scopeImplElement = env.findTypeElement(scopeImplClassName.j.canonicalName()) ?: return null
+    val annotation =
+        scopeImplElement.getAnnotation(
+            com.squareup.javapoet.ClassName.get(motif.ScopeImpl::class.java),
+        ) ?: return null
+    val dependenciesType = annotation.getAsType("dependencies")
+    if (dependenciesType.typeElement == null) return null
+    return compilerClass.cache.compilerClass(dependenciesType)
+  }
+}
@@ -22,6 +22,9 @@ import motif.core.ResolvedGraph
 
 const val OPTION_KAPT_KOTLIN_GENERATED = "kapt.kotlin.generated"
 const val OPTION_MODE = "motif.mode"
+const val OPTION_THREAD_CONFINED_ASSERTIONS = "motif.threadConfinedAssertions"
+const val OPTION_SHORT_CIRCUIT_DEPENDENCIES = "motif.shortCircuitDependencies"
+const val OPTION_STUB_PRECOMPILED_SCOPES = "motif.stubPrecompiledScopes"
 
 class Processor : JavacBasicAnnotationProcessor() {
   lateinit var graph: ResolvedGraph
@@ -31,5 +34,12 @@ class Processor : JavacBasicAnnotationProcessor() {
   override fun processingSteps(): Iterable<XProcessingStep> =
       listOf<XProcessingStep>(MotifProcessingStep(graphSetter = { graph = it }))
 
-  override fun getSupportedOptions(): Set<String> = setOf(OPTION_MODE, OPTION_KAPT_KOTLIN_GENERATED)
+  override fun getSupportedOptions(): Set<String> =
+      setOf(
+          OPTION_MODE,
+          OPTION_KAPT_KOTLIN_GENERATED,
+          OPTION_THREAD_CONFINED_ASSERTIONS,
+          OPTION_SHORT_CIRCUIT_DEPENDENCIES,
+          OPTION_STUB_PRECOMPILED_SCOPES,
+      )
 }
@@ -17,6 +17,7 @@ package motif.compiler
 
 import androidx.room.compiler.processing.XProcessingEnv
 import androidx.room.compiler.processing.XType
+import androidx.room.compiler.processing.XTypeElement
 import androidx.room.compiler.processing.compat.XConverters.getProcessingEnv
 import androidx.room.compiler.processing.compat.XConverters.toJavac
 import androidx.room.compiler.processing.compat.XConverters.toKS
@@ -39,10 +40,15 @@ class ScopeImpl(
     val className: ClassName,
     val superClassName: ClassName,
     val internalScope: Boolean,
+    val isCreatable: Boolean,
     val scopeImplAnnotation: ScopeImplAnnotation,
     val objectsField: ObjectsField?,
     val dependenciesField: DependenciesField,
     val cacheFields: List<CacheField>,
+    val dependencyCacheFields: List<DependencyCacheField>,
+    val ownerThreadField: OwnerThreadField?,
+    val closedField: ClosedField?,
+    val childDependenciesFields: List<ChildDependenciesField>,
     val constructor: Constructor,
     val alternateConstructor: AlternateConstructor?,
     val accessMethodImpls: List<AccessMethodImpl>,
@@ -50,8 +56,11 @@ class ScopeImpl(
     val scopeProviderMethod: ScopeProviderMethod,
     val factoryProviderMethods: List<FactoryProviderMethod>,
     val dependencyProviderMethods: List<DependencyProviderMethod>,
+    val warmUpMethod: WarmUpMethod?,
+    val closeMethod: CloseMethod?,
     val objectsImpl: ObjectsImpl?,
     val dependencies: Dependencies?,
+    val originatingElements: List<XTypeElement>,
 )
 
 /**
@@ -91,8 +100,76 @@ class DependenciesField(val dependenciesClassName: ClassName, val name: String)
  * ```
  * private Object foo = None.NONE;
  * ```
+ *
+ * Soft:
+ * ```
+ * private SoftReference<Object> foo;
+ * ```
+ */
+class CacheField(val name: String, val lock: CacheLock, val isSoftReference: Boolean)
+
+/** Guards the lazy initialization of a [CacheField]. */
+sealed class CacheLock {
+
+  /**
+   * ```
+   * synchronized (this) { ... }
+   * ```
+   */
+  object Scope : CacheLock()
+
+  /**
+   * ```
+   * private final Object fooLock = new Object();
+   *
+   * synchronized (fooLock) { ... }
+   * ```
+   */
+  class Field(val name: String) : CacheLock()
+
+  /**
+   * ```
+   * private static final AtomicReferenceFieldUpdater<FooScopeImpl, Object> fooUpdater = ...;
+   *
+   * fooUpdater.compareAndSet(this, None.NONE, _foo)
+   * ```
+   */
+  class Updater(val name: String) : CacheLock()
+
+  /**
+   * ```
+   * if (Thread.currentThread() != ownerThread) { throw ... } // Only if ownerThreadField != null
+   * if (foo == None.NONE) {
+   *     foo = [ FactoryProviderInstantiation ];
+   * }
+   * ```
+   */
+  class None(val ownerThreadField: OwnerThreadField?) : CacheLock()
+}
+
+/**
+ * Remembers a dependency that every ancestor path resolves to a stable instance, so that repeated
+ * lookups don't walk the chain of parent Scopes again.
+ *
+ * ```
+ * private volatile Foo foo;
+ * ```
+ */
+class DependencyCacheField(val name: String, val typeName: TypeName, val isVolatile: Boolean)
+
+/**
+ * ```
+ * private final Thread ownerThread = Thread.currentThread();
+ * ```
+ */
+class OwnerThreadField(val name: String, val scopeClassName: ClassName)
+
+/**
+ * ```
+ * private volatile boolean closed;
+ * ```
  */
-class CacheField(val name: String)
+class ClosedField(val name: String, val scopeClassName: ClassName)
 
 /**
  * ```
@@ -138,6 +215,19 @@ class AccessMethodImpl(
  *   return new ChildScopeImpl([ ChildDependenciesImpl ]);
  * }
  * ```
+ *
+ * Without parameters:
+ * ```
+ * @Override
+ * public ChildScope childScope() {
+ *   ChildScopeImpl.Dependencies childScopeDependencies = this.childScopeDependencies;
+ *   if (childScopeDependencies == null) {
+ *     childScopeDependencies = [ ChildDependenciesImpl ];
+ *     this.childScopeDependencies = childScopeDependencies;
+ *   }
+ *   return new ChildScopeImpl(childScopeDependencies);
+ * }
+ * ```
  */
 class ChildMethodImpl(
     val childClassName: ClassName,
@@ -145,8 +235,19 @@ class ChildMethodImpl(
     val childMethodName: String,
     val parameters: List<ChildMethodImplParameter>,
     val childDependenciesImpl: ChildDependenciesImpl,
+    val childDependenciesField: ChildDependenciesField?,
 )
 
+/**
+ * Holds the [ChildDependenciesImpl] of child methods without parameters. The adapter only delegates
+ * to this ScopeImpl, so a single lazily created instance is shared by every child Scope.
+ *
+ * ```
+ * private ChildScopeImpl.Dependencies childScopeDependencies;
+ * ```
+ */
+class ChildDependenciesField(val name: String, val childDependenciesClassName: ClassName)
+
 /**
  * ```
  * final Foo foo
@@ -217,18 +318,72 @@ class ScopeProviderMethod(val name: String, val scopeClassName: ClassName, val i
  *     return dependencies.foo();
  * }
  * ```
+ *
+ * With a [DependencyCacheField]:
+ * ```
+ * Foo foo() {
+ *     Foo _foo = foo;
+ *     if (_foo == null) {
+ *         _foo = dependencies.foo();
+ *         foo = _foo;
+ *     }
+ *     return _foo;
+ * }
+ * ```
  */
 class DependencyProviderMethod(
     val name: String,
     val returnTypeName: TypeName,
     val dependenciesFieldName: String,
     val dependencyMethodName: String,
+    val cacheFieldName: String?,
     val env: XProcessingEnv,
 )
 
+/**
+ * ```
+ * public Future<Void> warmUp(Executor executor) {
+ *     return WarmUp.start(
+ *         executor, new Runnable[] {this::foo, this::bar}, new int[][] {{}, {0}});
+ * }
+ * ```
+ */
+class WarmUpMethod(val name: String, val tasks: List<WarmUpTask>)
+
+/**
+ * ```
+ * @Override
+ * public synchronized void close() {
+ *     if (closed) return;
+ *     closed = true;
+ *     Object bar;
+ *     synchronized (barLock) { // Only for CacheLock.Field
+ *         bar = this.bar;
+ *         this.bar = None.NONE;
+ *     }
+ *     Object foo = fooUpdater.getAndSet(this, None.NONE); // Only for CacheLock.Updater
+ *     Disposables.dispose(bar, foo);
+ * }
+ * ```
+ *
+ * Each cache field is released under the same lock that guards its initialization. Provider
+ * methods check [closedField] again while holding that lock, so an object is either released here
+ * or never created.
+ *
+ * @property cacheFields The cache fields to release, dependents before their dependencies.
+ */
+class CloseMethod(val closedField: ClosedField, val cacheFields: List<CacheField>)
+
+/**
+ * Creates the object returned by [providerMethodName] once the tasks at [dependencyIndices] have
+ * completed.
+ */
+class WarmUpTask(val providerMethodName: String, val dependencyIndices: List<Int>)
+
 /**
  * ```
  * Foo foo() {
+ *     if (closed) { throw ... } // Only if closedField != null
  *     [ FactoryProviderMethodBody ]
  * }
  *
@@ -238,6 +393,7 @@ class DependencyProviderMethod(
 class FactoryProviderMethod(
     val name: String,
     val returnTypeName: TypeName,
+    val closedField: ClosedField?,
     val body: FactoryProviderMethodBody,
     val spreadProviderMethods: List<SpreadProviderMethod>,
     val env: XProcessingEnv,
@@ -250,6 +406,7 @@ sealed class FactoryProviderMethodBody {
    * if (foo == None.NONE) {
    *     synchronized (this) {
    *         if (foo == None.NONE) {
+   *             if (closed) { throw ... } // Only if closedField != null
    *             foo = [ FactoryProviderInstantiation ];
    *         }
    *     }
@@ -259,6 +416,35 @@ sealed class FactoryProviderMethodBody {
    */
   class Cached(
       val cacheFieldName: String,
+      val lock: CacheLock,
+      val closedField: ClosedField?,
+      val returnTypeName: TypeName,
+      val instantiation: FactoryProviderInstantiation,
+      val env: XProcessingEnv,
+  ) : FactoryProviderMethodBody()
+
+  /**
+   * ```
+   * SoftReference<Object> _fooRef = foo;
+   * Object _foo = _fooRef == null ? null : _fooRef.get();
+   * if (_foo == null) {
+   *     synchronized (this) {
+   *         _fooRef = foo;
+   *         _foo = _fooRef == null ? null : _fooRef.get();
+   *         if (_foo == null) {
+   *             if (closed) { throw ... } // Only if closedField != null
+   *             _foo = [ FactoryProviderInstantiation ];
+   *             foo = new SoftReference<Object>(_foo);
+   *         }
+   *     }
+   * }
+   * return (Foo) _foo;
+   * ```
+   */
+  class SoftCached(
+      val cacheFieldName: String,
+      val lock: CacheLock,
+      val closedField: ClosedField?,
       val returnTypeName: TypeName,
       val instantiation: FactoryProviderInstantiation,
       val env: XProcessingEnv,
@@ -314,7 +500,32 @@ sealed class FactoryProviderInstantiation {
  * (foo(), bar())
  * ```
  */
-class CallProviders(val providerMethodNames: List<String>)
+class CallProviders(val providerCalls: List<ProviderCall>)
+
+/** A single argument of [CallProviders]. */
+sealed class ProviderCall(val providerMethodName: String) {
+
+  /**
+   * ```
+   * foo()
+   * ```
+   */
+  class Instance(providerMethodName: String) : ProviderCall(providerMethodName)
+
+  /**
+   * ```
+   * () -> foo()
+   * ```
+   */
+  class Provider(providerMethodName: String) : ProviderCall(providerMethodName)
+
+  /**
+   * ```
+   * DoubleCheckLazy.lazy(() -> foo())
+   * ```
+   */
+  class Lazy(providerMethodName: String) : ProviderCall(providerMethodName)
+}
 
 /**
  * ```
@@ -15,7 +15,11 @@
  */
 package motif.compiler
 
+import androidx.room.compiler.processing.XEnumEntry
 import androidx.room.compiler.processing.XProcessingEnv
+import androidx.room.compiler.processing.XTypeElement
+import motif.CacheSynchronization
+import motif.Eager
 import motif.ast.IrClass
 import motif.ast.IrType
 import motif.ast.compiler.CompilerAnnotation
@@ -29,12 +33,18 @@ import motif.models.AccessMethodSink
 import motif.models.BasicFactoryMethod
 import motif.models.BindsFactoryMethod
 import motif.models.ChildMethod
+import motif.models.ChildParameterSource
 import motif.models.ConstructorFactoryMethod
 import motif.models.FactoryMethod
 import motif.models.FactoryMethodSink
+import motif.models.FactoryMethodSource
+import motif.models.PrecompiledScope
 import motif.models.Scope
+import motif.models.ScopeSource
 import motif.models.Sink
+import motif.models.Source
 import motif.models.Spread
+import motif.models.SpreadSource
 import motif.models.Type
 
 class ScopeImplFactory
@@ -51,6 +61,23 @@ private constructor(
 
   private val dependencyMethods = mutableMapOf<Scope, List<DependencyMethodData>>()
 
+  private val threadConfinedAssertions =
+      env.options[OPTION_THREAD_CONFINED_ASSERTIONS]?.toBoolean() ?: false
+
+  private val shortCircuitDependencies =
+      env.options[OPTION_SHORT_CIRCUIT_DEPENDENCIES]?.toBoolean() ?: false
+
+  /**
+   * Sinks that at least one root or Creatable Scope leaves to its externally provided Dependencies.
+   * A Creatable child Scope may also be instantiated directly with its own Dependencies.
+   */
+  private val externalSinks: Set<Sink> by lazy {
+    graph.scopes
+        .filter { scope -> scope in graph.roots || scope.dependencies != null }
+        .flatMap { scope -> graph.getUnsatisfied(scope).values.flatten() }
+        .toSet()
+  }
+
   private fun create(): List<ScopeImpl> =
       graph.scopes
           .filter { scope -> env.findTypeElement(scope.implClassName.j.toString()) == null }
@@ -64,30 +91,69 @@ private constructor(
 
     private val providerMethodNames = mutableMapOf<Type, String>()
     private val cacheFieldNames = mutableMapOf<Type, String>()
+    private val cacheLocks = mutableMapOf<Type, CacheLock>()
+    private val cachedDependencies = mutableMapOf<FactoryMethod, Set<FactoryMethod>>()
+    private val childDependenciesFields = mutableMapOf<Scope, ChildDependenciesField>()
+
+    private val scopeAnnotationValues =
+        scope.clazz.annotations
+            .find { it.className == motif.Scope::class.java.name }!!
+            .annotationValueMap
+
+    private val cacheSynchronization: CacheSynchronization =
+        (scopeAnnotationValues[SCOPE_ANNOTATION_FIELD_CACHE_SYNCHRONIZATION] as? XEnumEntry)
+            ?.let { CacheSynchronization.valueOf(it.name) } ?: CacheSynchronization.SCOPE
+
+    private val threadConfined: Boolean =
+        cacheSynchronization == CacheSynchronization.THREAD_CONFINED
+
+    private val ownerThreadField: OwnerThreadField? by lazy {
+      if (threadConfined && threadConfinedAssertions) {
+        OwnerThreadField(fieldNameScope.name(OWNER_THREAD_FIELD_NAME), scope.typeName)
+      } else {
+        null
+      }
+    }
+
+    private val closedField: ClosedField? by lazy {
+      if (scope.isCloseable) {
+        ClosedField(fieldNameScope.name(CLOSED_FIELD_NAME), scope.typeName)
+      } else {
+        null
+      }
+    }
 
     fun create(): ScopeImpl {
       val isInternal = (scope.clazz as? CompilerClass)?.isInternal() ?: false
+      // Name cache fields before the child Dependencies fields so that their names stay stable.
+      val cacheFields = cacheFields()
+      val childMethodImpls = childMethodImpls()
       return ScopeImpl(
-          (scope.clazz.annotations
-              .find { it.className == motif.Scope::class.java.name }!!
-              .annotationValueMap[SCOPE_ANNOTATION_FIELD_USE_NULL]
-              as? Boolean) ?: false,
+          (scopeAnnotationValues[SCOPE_ANNOTATION_FIELD_USE_NULL] as? Boolean) ?: false,
           scope.implClassName,
           scope.typeName,
           isInternal,
+          scope.dependencies != null,
           scopeImplAnnotation(),
           objectsField(),
           dependenciesField(),
-          cacheFields(),
+          cacheFields,
+          dependencyCacheFields(),
+          ownerThreadField,
+          closedField,
+          childDependenciesFields.values.toList(),
           constructor(),
           alternateConstructor(),
           accessMethodImpls(),
-          childMethodImpls(),
+          childMethodImpls,
           scopeProviderMethod(),
           factoryProviderMethods(),
           dependencyProviderMethods(),
+          warmUpMethod(),
+          closeMethod(),
           objectsImpl(),
           dependencies(),
+          originatingElements(),
       )
     }
 
@@ -108,7 +174,14 @@ private constructor(
     private fun cacheFields(): List<CacheField> =
         scope.factoryMethods
             .filter { it.isCached }
-            .map { factoryMethod -> CacheField(getCacheFieldName(factoryMethod.returnType.type)) }
+            .map { factoryMethod ->
+              val type = factoryMethod.returnType.type
+              CacheField(
+                  getCacheFieldName(type),
+                  getCacheLock(factoryMethod),
+                  factoryMethod.isSoftCached,
+              )
+            }
 
     private fun constructor(): Constructor =
         Constructor(scope.dependenciesClassName, "dependencies", DEPENDENCIES_FIELD_NAME)
@@ -140,8 +213,24 @@ private constructor(
             childEdge.method.method.name,
             childEdge.method.parameters.map(this::childMethodImplParameter),
             childDependenciesImpl(childEdge),
+            childDependenciesField(childEdge),
         )
 
+    /**
+     * Child methods without parameters produce identical Dependencies adapters, so they can share a
+     * single instance instead of allocating one per child Scope.
+     */
+    private fun childDependenciesField(childEdge: ScopeEdge): ChildDependenciesField? {
+      if (childEdge.method.parameters.isNotEmpty()) return null
+      val child = childEdge.child
+      return childDependenciesFields.getOrPut(child) {
+        ChildDependenciesField(
+            fieldNameScope.name("${child.simpleName.decapitalize()}Dependencies"),
+            child.dependenciesClassName,
+        )
+      }
+    }
+
     private fun childMethodImplParameter(
         childMethodParameter: ChildMethod.Parameter,
     ): ChildMethodImplParameter =
@@ -203,6 +292,7 @@ private constructor(
           FactoryProviderMethod(
               getProviderMethodName(returnType),
               returnType.type.typeName,
+              closedField,
               factoryProviderMethodBody(factoryMethod),
               spreadProviderMethods,
               env,
@@ -216,9 +306,20 @@ private constructor(
             is ConstructorFactoryMethod -> constructorInstantiation(factoryMethod)
             is BindsFactoryMethod -> bindsInstantiation(factoryMethod)
           }
-      return if (factoryMethod.isCached) {
+      return if (factoryMethod.isSoftCached) {
+        FactoryProviderMethodBody.SoftCached(
+            getCacheFieldName(factoryMethod.returnType.type),
+            getCacheLock(factoryMethod),
+            closedField,
+            factoryMethod.returnType.type.type.typeName,
+            instantiation,
+            env,
+        )
+      } else if (factoryMethod.isCached) {
         FactoryProviderMethodBody.Cached(
             getCacheFieldName(factoryMethod.returnType.type),
+            getCacheLock(factoryMethod),
+            closedField,
             factoryMethod.returnType.type.type.typeName,
             instantiation,
             env,
@@ -267,9 +368,16 @@ private constructor(
         )
 
     private fun callProviders(factoryMethod: FactoryMethod): CallProviders {
-      val names =
-          factoryMethod.parameters.map { parameter -> getProviderMethodName(parameter.type) }
-      return CallProviders(names)
+      val providerCalls =
+          factoryMethod.parameters.map { parameter ->
+            val providerMethodName = getProviderMethodName(parameter.type)
+            when (parameter.kind) {
+              FactoryMethod.Parameter.Kind.INSTANCE -> ProviderCall.Instance(providerMethodName)
+              FactoryMethod.Parameter.Kind.PROVIDER -> ProviderCall.Provider(providerMethodName)
+              FactoryMethod.Parameter.Kind.LAZY -> ProviderCall.Lazy(providerMethodName)
+            }
+          }
+      return CallProviders(providerCalls)
     }
 
     private fun dependencyProviderMethods(): List<DependencyProviderMethod> =
@@ -279,10 +387,138 @@ private constructor(
               methodData.returnTypeName,
               DEPENDENCIES_FIELD_NAME,
               methodData.name,
+              if (isStableDependency(methodData)) {
+                getCacheFieldName(methodData.returnType)
+              } else {
+                null
+              },
               env,
           )
         }
 
+    private fun dependencyCacheFields(): List<DependencyCacheField> =
+        getDependencyMethodData(scope).filter(this::isStableDependency).map { methodData ->
+          DependencyCacheField(
+              getCacheFieldName(methodData.returnType),
+              methodData.returnTypeName,
+              !threadConfined,
+          )
+        }
+
+    /**
+     * Returns true if every ancestor path provides the same instance for the lifetime of this
+     * Scope. The first lookup through the Dependencies chain can then be remembered. Dependencies
+     * that reach the external Dependencies of a root or Creatable Scope are never remembered, since
+     * Motif can't see how they are implemented.
+     */
+    private fun isStableDependency(methodData: DependencyMethodData): Boolean {
+      if (!shortCircuitDependencies || methodData.returnTypeName.j.isPrimitive) return false
+      return methodData.sinks.all { sink ->
+        if (sink in externalSinks) return@all false
+        val providers = graph.getProviders(sink)
+        providers.any() && providers.all(::isStableSource)
+      }
+    }
+
+    private fun isStableSource(source: Source): Boolean =
+        when (source) {
+          is FactoryMethodSource ->
+              source.factoryMethod.isCached &&
+                  !source.factoryMethod.isSoftCached &&
+                  !source.scope.isCloseable
+          is ChildParameterSource,
+          is ScopeSource -> true
+          is SpreadSource -> false
+        }
+
+    /**
+     * The cached factory methods that warmUp creates: every eager factory method and the cached
+     * factory methods it depends on, each after its dependencies.
+     */
+    private val warmUpFactoryMethods: List<FactoryMethod> by lazy {
+      // warmUp creates objects on the Executor's threads, which a thread-confined Scope forbids.
+      if (threadConfined) return@lazy emptyList()
+      val isScopeEager = scope.clazz.hasAnnotation(Eager::class)
+      sortByDependencies(
+          scope.factoryMethods.filter { it.isCached && (isScopeEager || it.isEager) })
+    }
+
+    private fun warmUpMethod(): WarmUpMethod? {
+      val sortedFactoryMethods = warmUpFactoryMethods
+      if (sortedFactoryMethods.isEmpty()) return null
+
+      val taskIndices = sortedFactoryMethods.withIndex().associate { (i, it) -> it to i }
+      val tasks =
+          sortedFactoryMethods.map { factoryMethod ->
+            val dependencyIndices =
+                getCachedDependencies(factoryMethod).map { taskIndices.getValue(it) }.sorted()
+            WarmUpTask(getProviderMethodName(factoryMethod.returnType.type), dependencyIndices)
+          }
+      return WarmUpMethod(WARM_UP_METHOD_NAME, tasks)
+    }
+
+    private fun closeMethod(): CloseMethod? {
+      val closedField = closedField ?: return null
+      val cacheFields =
+          sortByDependencies(scope.factoryMethods.filter { it.isCached })
+              .asReversed()
+              .map { factoryMethod ->
+                CacheField(
+                    getCacheFieldName(factoryMethod.returnType.type),
+                    getCacheLock(factoryMethod),
+                    factoryMethod.isSoftCached,
+                )
+              }
+      return CloseMethod(closedField, cacheFields)
+    }
+
+    /**
+     * Returns [factoryMethods] and their cached dependencies such that every factory method comes
+     * after the ones it depends on.
+     */
+    private fun sortByDependencies(factoryMethods: List<FactoryMethod>): List<FactoryMethod> {
+      val sorted = LinkedHashSet<FactoryMethod>()
+      fun visit(factoryMethod: FactoryMethod) {
+        if (factoryMethod in sorted) return
+        getCachedDependencies(factoryMethod).forEach(::visit)
+        sorted.add(factoryMethod)
+      }
+      factoryMethods.forEach(::visit)
+      return sorted.toList()
+    }
+
+    /**
+     * Returns the cached factory methods of this Scope that [factoryMethod] creates eagerly,
+     * looking through uncached factory methods. Dependencies provided by a parent Scope are not
+     * included.
+     */
+    private fun getCachedDependencies(factoryMethod: FactoryMethod): Set<FactoryMethod> {
+      // Not using computeIfAbsent here since this modifies the map recursively.
+      cachedDependencies[factoryMethod]?.let {
+        return it
+      }
+      val source = factoryMethod.sources.filterIsInstance<FactoryMethodSource>().single()
+      return graph
+          .getRequired(source)
+          .filter { sink ->
+            sink !is FactoryMethodSink ||
+                sink.parameter.kind == FactoryMethod.Parameter.Kind.INSTANCE
+          }
+          .flatMap { sink -> graph.getProviders(sink) }
+          .mapNotNull { provider ->
+            when (provider) {
+              is FactoryMethodSource -> provider.factoryMethod
+              is SpreadSource -> provider.spreadMethod.spread.factoryMethod
+              else -> null
+            }
+          }
+          .filter { dependency -> dependency.objects.scope == scope }
+          .flatMapTo(LinkedHashSet()) { dependency ->
+            if (dependency.isCached) setOf(dependency) else getCachedDependencies(dependency)
+          }
+          .also { cachedDependencies[factoryMethod] = it }
+    }
+
     private fun objectsImpl(): ObjectsImpl? {
       val objects = scope.objects ?: return null
       val objectsClassName = scope.objectsClassName ?: return null
@@ -326,7 +562,11 @@ private constructor(
             val (ownerType, callerMethod) =
                 when (sink) {
                   is FactoryMethodSink -> Pair(sink.parameter.owner.type, sink.parameter.method)
-                  is AccessMethodSink -> Pair(sink.scope.clazz.type, sink.accessMethod.method)
+                  is AccessMethodSink -> {
+                    // A PrecompiledScope's access methods are the methods of its Dependencies.
+                    val owner = (sink.scope as? PrecompiledScope)?.dependencies?.clazz
+                    Pair((owner ?: sink.scope.clazz).type, sink.accessMethod.method)
+                  }
                 }
 
             val owner = removeGenerics(ownerType.qualifiedName)
@@ -343,6 +583,21 @@ private constructor(
       return DependencyMethodJavaDoc(requestedFrom)
     }
 
+    /**
+     * The source elements that the generated ScopeImpl is derived from, so that incremental builds
+     * know which inputs it depends on.
+     */
+    private fun originatingElements(): List<XTypeElement> {
+      val classes =
+          listOfNotNull(scope.clazz, scope.objects?.clazz) +
+              scope.childMethods.map { it.childScopeClass } +
+              scope.factoryMethods.mapNotNull { it.spread?.clazz } +
+              scope.factoryMethods.filterIsInstance<ConstructorFactoryMethod>().mapNotNull {
+                it.returnType.type.type.resolveClass()
+              }
+      return classes.mapNotNull { (it as? CompilerClass)?.declaredType?.typeElement }.distinct()
+    }
+
     private fun removeGenerics(name: String): String = name.takeWhile { it != '<' }
 
     private fun getProviderMethodName(type: Type): String {
@@ -353,6 +608,35 @@ private constructor(
     private fun getCacheFieldName(type: Type) =
         cacheFieldNames.computeIfAbsent(type) { fieldNameScope.name(type) }
 
+    private fun getCacheLock(factoryMethod: FactoryMethod): CacheLock {
+      val type = factoryMethod.returnType.type
+      return cacheLocks.computeIfAbsent(type) {
+        when (cacheSynchronization) {
+          // warmUp creates independent objects in parallel, which a shared monitor would
+          // serialize. Objects created by warmUp get a dedicated lock instead.
+          CacheSynchronization.SCOPE ->
+              if (factoryMethod in warmUpFactoryMethods) {
+                CacheLock.Field(getLockFieldName(type))
+              } else {
+                CacheLock.Scope
+              }
+          CacheSynchronization.FIELD -> CacheLock.Field(getLockFieldName(type))
+          // A SoftReference is re-created whenever it is cleared, so compare-and-set would not
+          // prevent duplicate instances. Fall back to a dedicated lock instead.
+          CacheSynchronization.ATOMIC ->
+              if (factoryMethod.isSoftCached) {
+                CacheLock.Field(getLockFieldName(type))
+              } else {
+                CacheLock.Updater(fieldNameScope.name("${getCacheFieldName(type)}Updater"))
+              }
+          CacheSynchronization.THREAD_CONFINED -> CacheLock.None(ownerThreadField)
+        }
+      }
+    }
+
+    private fun getLockFieldName(type: Type): String =
+        fieldNameScope.name("${getCacheFieldName(type)}Lock")
+
     private fun getTypeOrMappedType(type: Type, keys: Set<Type>): Type {
       if (type in keys) return type
 
@@ -405,9 +689,7 @@ private constructor(
   private val Scope.implClassName: ClassName
     get() =
         scopeImplClassNames.computeIfAbsent(this) { scope ->
-          val scopeClassName = scope.clazz.typeName
-          val prefix = scopeClassName.kt.simpleNames.joinToString("")
-          ClassName.get(scopeClassName.kt.packageName, "$prefix${Constants.SCOPE_IMPL_SUFFIX}")
+          scopeImplClassName(scope.clazz.typeName)
         }
 
   private val Scope.dependenciesClassName: ClassName
@@ -434,8 +716,18 @@ private constructor(
     private const val OBJECTS_FIELD_NAME = "objects"
     private const val DEPENDENCIES_FIELD_NAME = "dependencies"
     private const val SCOPE_ANNOTATION_FIELD_USE_NULL = "useNullFieldInitialization"
+    private const val SCOPE_ANNOTATION_FIELD_CACHE_SYNCHRONIZATION = "cacheSynchronization"
+    private const val OWNER_THREAD_FIELD_NAME = "ownerThread"
+    private const val WARM_UP_METHOD_NAME = "warmUp"
+    private const val CLOSED_FIELD_NAME = "closed"
 
     fun create(env: XProcessingEnv, graph: ResolvedGraph): List<ScopeImpl> =
         ScopeImplFactory(env, graph).create()
+
+    /** Name of the ScopeImpl generated for the Scope named [scopeClassName]. */
+    fun scopeImplClassName(scopeClassName: ClassName): ClassName {
+      val prefix = scopeClassName.kt.simpleNames.joinToString("")
+      return ClassName.get(scopeClassName.kt.packageName, "$prefix${Constants.SCOPE_IMPL_SUFFIX}")
+    }
   }
 }
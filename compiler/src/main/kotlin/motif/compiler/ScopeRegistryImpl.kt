@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.compiler
+
+import org.apache.commons.codec.digest.DigestUtils
+
+/**
+ * ```
+ * public final class ScopeRegistry_1a2b3c4d5e6f implements motif.internal.ScopeRegistry {
+ *
+ *     @Override
+ *     public void registerAll(Map<Class<?>, ScopeRegistry.Factory> factories) {
+ *         factories.put(
+ *             FooScope.class,
+ *             dependencies -> new FooScopeImpl((FooScope.Dependencies) dependencies));
+ *     }
+ * }
+ * ```
+ */
+class ScopeRegistryImpl(val className: ClassName, val entries: List<ScopeRegistryEntry>) {
+
+  companion object {
+
+    private const val CLASS_NAME_PREFIX = "ScopeRegistry_"
+
+    /**
+     * Returns a registry for the [Creatable][motif.Creatable] Scopes in [scopeImpls] or null if
+     * there are none. The class name is derived from the registered ScopeImpls so that registries
+     * generated by different compilations never collide.
+     */
+    fun create(scopeImpls: List<ScopeImpl>): ScopeRegistryImpl? {
+      val entries =
+          scopeImpls
+              .filter { it.isCreatable }
+              .sortedBy { it.className.j.canonicalName() }
+              .map { scopeImpl ->
+                ScopeRegistryEntry(
+                    scopeImpl.superClassName,
+                    scopeImpl.className,
+                    scopeImpl.constructor.dependenciesClassName,
+                )
+              }
+      if (entries.isEmpty()) return null
+      val scopeImplNames = entries.joinToString(",") { it.scopeImplClassName.j.canonicalName() }
+      val hash = DigestUtils.sha1Hex(scopeImplNames).take(12)
+      val packageName = entries.first().scopeImplClassName.j.packageName()
+      return ScopeRegistryImpl(ClassName.get(packageName, "$CLASS_NAME_PREFIX$hash"), entries)
+    }
+  }
+}
+
+class ScopeRegistryEntry(
+    val scopeClassName: ClassName,
+    val scopeImplClassName: ClassName,
+    val dependenciesClassName: ClassName,
+)
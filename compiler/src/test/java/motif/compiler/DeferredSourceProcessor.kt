@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.compiler
+
+import javax.annotation.processing.AbstractProcessor
+import javax.annotation.processing.RoundEnvironment
+import javax.lang.model.SourceVersion
+import javax.lang.model.element.TypeElement
+
+/**
+ * Writes [sources], keyed by qualified class name, through the Filer in the first round so that
+ * other processors only see them in the second round. Lets test cases exercise Scopes that another
+ * processor generates after Motif has already run.
+ */
+class DeferredSourceProcessor(private val sources: Map<String, String>) : AbstractProcessor() {
+
+  private var written = false
+
+  override fun getSupportedAnnotationTypes(): Set<String> = setOf("*")
+
+  override fun getSupportedSourceVersion(): SourceVersion = SourceVersion.latestSupported()
+
+  override fun process(annotations: Set<TypeElement>, roundEnv: RoundEnvironment): Boolean {
+    if (written) return false
+    written = true
+    sources.forEach { (qualifiedName, text) ->
+      processingEnv.filer.createSourceFile(qualifiedName).openWriter().use { it.write(text) }
+    }
+    return false
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.compiler
+
+import com.google.common.truth.Truth.assertThat
+import java.io.File
+import org.gradle.testkit.runner.BuildResult
+import org.gradle.testkit.runner.GradleRunner
+import org.gradle.testkit.runner.TaskOutcome
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+/**
+ * Builds a small Gradle project with the processor twice and checks that Gradle compiles it
+ * incrementally. The processor classpath is passed in by the test task as
+ * [PROCESSOR_PATH_PROPERTY].
+ */
+class IncrementalBuildTest {
+
+  @Rule @JvmField var projectDir = TemporaryFolder()
+
+  @Before
+  fun setUp() {
+    val processorPath =
+        System.getProperty(PROCESSOR_PATH_PROPERTY)
+            .split(File.pathSeparator)
+            .joinToString(", ") { "'${it.replace('\\', '/')}'" }
+    write("settings.gradle", "rootProject.name = 'incremental'")
+    write(
+        "build.gradle",
+        """
+        plugins {
+          id 'java'
+        }
+
+        dependencies {
+          implementation files($processorPath)
+          annotationProcessor files($processorPath)
+        }
+        """
+            .trimIndent(),
+    )
+    writeFooScope("")
+    writeUnrelated("")
+  }
+
+  @Test
+  fun unrelatedChangeIsIncremental() {
+    assertThat(build().task(":compileJava")?.outcome).isEqualTo(TaskOutcome.SUCCESS)
+
+    writeUnrelated("void unrelated() {}")
+    val result = build()
+
+    assertThat(result.task(":compileJava")?.outcome).isEqualTo(TaskOutcome.SUCCESS)
+    assertThat(result.output).doesNotContain("Full recompilation is required")
+    assertThat(generatedScopeImpl()).contains("String string()")
+  }
+
+  @Test
+  fun scopeChangeRegeneratesScopeImpl() {
+    build()
+    assertThat(generatedScopeImpl()).doesNotContain("Integer integer()")
+
+    writeFooScope("Integer integer() { return 1; }")
+    val result = build()
+
+    assertThat(result.task(":compileJava")?.outcome).isEqualTo(TaskOutcome.SUCCESS)
+    assertThat(result.output).doesNotContain("Full recompilation is required")
+    assertThat(generatedScopeImpl()).contains("Integer integer()")
+  }
+
+  private fun writeFooScope(extraFactoryMethod: String) {
+    val extraAccessor =
+        if (extraFactoryMethod.isEmpty()) "" else extraFactoryMethod.substringBefore(" {") + ";"
+    write(
+        "src/main/java/test/FooScope.java",
+        """
+        package test;
+
+        @motif.Scope
+        public interface FooScope {
+          String string();
+
+          $extraAccessor
+
+          @motif.Objects
+          abstract class Objects {
+            String string() { return "s"; }
+
+            $extraFactoryMethod
+          }
+        }
+        """
+            .trimIndent(),
+    )
+  }
+
+  private fun writeUnrelated(body: String) {
+    write(
+        "src/main/java/test/Unrelated.java",
+        """
+        package test;
+
+        public class Unrelated {
+          $body
+        }
+        """
+            .trimIndent(),
+    )
+  }
+
+  private fun write(path: String, text: String) {
+    val file = File(projectDir.root, path)
+    file.parentFile.mkdirs()
+    file.writeText(text)
+  }
+
+  private fun build(): BuildResult =
+      GradleRunner.create()
+          .withProjectDir(projectDir.root)
+          .withArguments("compileJava", "--info", "--offline")
+          .build()
+
+  private fun generatedScopeImpl(): String =
+      File(
+              projectDir.root,
+              "build/generated/sources/annotationProcessor/java/main/test/FooScopeImpl.java",
+          )
+          .readText()
+
+  companion object {
+    const val PROCESSOR_PATH_PROPERTY = "motif.test.processorPath"
+  }
+}
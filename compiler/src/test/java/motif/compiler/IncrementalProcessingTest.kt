@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.compiler
+
+import androidx.room.compiler.processing.ExperimentalProcessingApi
+import androidx.room.compiler.processing.util.Source
+import androidx.room.compiler.processing.util.runProcessorTestWithoutKsp
+import com.google.common.truth.Truth.assertThat
+import com.google.testing.compile.CompilationSubject
+import com.google.testing.compile.Compiler.javac
+import com.google.testing.compile.JavaFileObjects
+import javax.lang.model.element.TypeElement
+import javax.tools.StandardLocation
+import motif.ast.compiler.CompilerCache
+import motif.core.ResolvedGraph
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+@OptIn(ExperimentalProcessingApi::class)
+class IncrementalProcessingTest {
+
+  @Rule @JvmField var temporaryFolder = TemporaryFolder()
+
+  @Test
+  fun registeredAsAggregating() {
+    val registrations =
+        javaClass.classLoader
+            .getResources("META-INF/gradle/incremental.annotation.processors")
+            .toList()
+            .flatMap { it.readText().lines() }
+    assertThat(registrations).contains("${Processor::class.java.name},aggregating")
+  }
+
+  @Test
+  fun originatingElements() {
+    val sources =
+        listOf(
+            Source.java(
+                "test.FooScope",
+                """
+                package test;
+
+                @motif.Scope
+                public interface FooScope {
+                  BarScope bar();
+
+                  @motif.Objects
+                  abstract class Objects {
+                    abstract Foo foo();
+                  }
+                }
+                """
+                    .trimIndent(),
+            ),
+            Source.java(
+                "test.BarScope",
+                """
+                package test;
+
+                @motif.Scope
+                public interface BarScope {}
+                """
+                    .trimIndent(),
+            ),
+            Source.java(
+                "test.Foo",
+                """
+                package test;
+
+                public class Foo {
+                  @javax.inject.Inject
+                  public Foo() {}
+                }
+                """
+                    .trimIndent(),
+            ),
+            Source.java(
+                "test.Unrelated",
+                """
+                package test;
+
+                public class Unrelated {}
+                """
+                    .trimIndent(),
+            ),
+        )
+
+    runProcessorTestWithoutKsp(sources) { invocation ->
+      val env = invocation.processingEnv
+      val scopeClass = CompilerCache(env).compilerClass(env.requireType("test.FooScope"))
+      val graph = ResolvedGraph.create(listOf(scopeClass))
+      val scopeImpl =
+          ScopeImplFactory.create(env, graph).single {
+            it.className.j.simpleName() == "FooScopeImpl"
+          }
+
+      val originatingElements =
+          JavaCodeGenerator.generate(scopeImpl).typeSpec.originatingElements.map {
+            (it as TypeElement).qualifiedName.toString()
+          }
+      assertThat(originatingElements)
+          .containsExactly("test.FooScope", "test.FooScope.Objects", "test.BarScope", "test.Foo")
+    }
+  }
+
+  @Test
+  fun kaptKotlinOutputWrittenThroughFiler() {
+    val kaptKotlinGeneratedDir = temporaryFolder.newFolder()
+    val compilation =
+        javac()
+            .withProcessors(Processor())
+            .withOptions(
+                "-A$OPTION_MODE=${OutputMode.KOTLIN.name.lowercase()}",
+                "-A$OPTION_KAPT_KOTLIN_GENERATED=$kaptKotlinGeneratedDir",
+            )
+            .compile(
+                JavaFileObjects.forSourceString(
+                    "test.FooScope",
+                    """
+                    package test;
+
+                    @motif.Scope
+                    public interface FooScope {}
+                    """
+                        .trimIndent(),
+                ),
+            )
+
+    CompilationSubject.assertThat(compilation).succeeded()
+    CompilationSubject.assertThat(compilation)
+        .generatedFile(StandardLocation.SOURCE_OUTPUT, "test", "FooScopeImpl.kt")
+    assertThat(kaptKotlinGeneratedDir.walk().filter { it.isFile }.toList()).isEmpty()
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.compiler
+
+import androidx.room.compiler.processing.ExperimentalProcessingApi
+import androidx.room.compiler.processing.util.Source
+import androidx.room.compiler.processing.util.runProcessorTestWithoutKsp
+import com.google.common.truth.Truth.assertThat
+import motif.ast.compiler.CompilerCache
+import motif.core.ResolvedGraph
+import motif.models.PrecompiledScope
+import org.junit.Test
+
+@OptIn(ExperimentalProcessingApi::class)
+class PrecompiledScopesTest {
+
+  private val sources =
+      listOf(
+          Source.java(
+              "test.FooScope",
+              """
+              package test;
+
+              @motif.Scope
+              public interface FooScope {
+                BarScope bar();
+
+                @motif.Objects
+                abstract class Objects {
+                  String string() {
+                    return "";
+                  }
+                }
+              }
+              """
+                  .trimIndent(),
+          ),
+          Source.java(
+              "test.BarScope",
+              """
+              package test;
+
+              @motif.Scope
+              public interface BarScope {
+                BazScope baz();
+              }
+              """
+                  .trimIndent(),
+          ),
+          Source.java(
+              "test.BazScope",
+              """
+              package test;
+
+              @motif.Scope
+              public interface BazScope {
+                String string();
+              }
+              """
+                  .trimIndent(),
+          ),
+          Source.java(
+              "test.BarScopeImpl",
+              """
+              package test;
+
+              @motif.ScopeImpl(
+                  scope = BarScope.class,
+                  dependencies = BarScopeImpl.Dependencies.class,
+                  children = {BazScope.class})
+              public abstract class BarScopeImpl implements BarScope {
+
+                public interface Dependencies {
+                  String string();
+                }
+              }
+              """
+                  .trimIndent(),
+          ),
+      )
+
+  @Test
+  fun disabledByDefault() {
+    runProcessorTestWithoutKsp(sources) { invocation ->
+      val env = invocation.processingEnv
+      val precompiledScopes = PrecompiledScopes(env)
+      val barClass = CompilerCache(env).compilerClass(env.requireType("test.BarScope"))
+
+      assertThat(precompiledScopes.isEnabled).isFalse()
+      assertThat(precompiledScopes.findDependencies(barClass)).isNull()
+    }
+  }
+
+  @Test
+  fun stubsScopeFromScopeImplAnnotation() {
+    runProcessorTestWithoutKsp(
+        sources,
+        options = mapOf(OPTION_STUB_PRECOMPILED_SCOPES to "true"),
+    ) { invocation ->
+      val env = invocation.processingEnv
+      val precompiledScopes = PrecompiledScopes(env)
+      val scopeClass = CompilerCache(env).compilerClass(env.requireType("test.FooScope"))
+      val graph =
+          ResolvedGraph.create(listOf(scopeClass)) { childClass ->
+            precompiledScopes.findDependencies(childClass)
+          }
+
+      assertThat(graph.errors).isEmpty()
+      assertThat(graph.scopes.map { it.qualifiedName })
+          .containsExactly("test.FooScope", "test.BarScope")
+      val barScope = graph.scopes.single { it.qualifiedName == "test.BarScope" }
+      assertThat(barScope).isInstanceOf(PrecompiledScope::class.java)
+      assertThat(barScope.dependencies!!.clazz.qualifiedName)
+          .isEqualTo("test.BarScopeImpl.Dependencies")
+      assertThat(graph.getUnsatisfied(barScope).keys.map { it.qualifiedName })
+          .containsExactly("java.lang.String")
+    }
+  }
+}
@@ -33,6 +33,7 @@ import java.lang.reflect.InvocationTargetException
 import java.net.URLClassLoader
 import java.nio.charset.Charset
 import java.nio.file.Files
+import java.util.Properties
 import javax.tools.Diagnostic
 import motif.compiler.ksp.MotifSymbolProcessorProvider
 import motif.core.ResolvedGraph
@@ -53,6 +54,7 @@ class TestHarness(
     private val outputMode: OutputMode,
     private val testCaseDir: File,
     testName: String,
+    private val options: OptionsVariant,
 ) {
 
   @Rule @JvmField var temporaryFolder = TemporaryFolder()
@@ -62,6 +64,7 @@ class TestHarness(
   private val errorFile = testCaseDir.resolve("ERROR.txt")
   private val graphFile = testCaseDir.resolve("GRAPH.txt")
   private val proguardFile = testCaseDir.resolve("config.pro")
+  private val optionsFile = testCaseDir.resolve("options.properties")
   private val isErrorTest = testName.matches("^K?E.*".toRegex())
 
   companion object {
@@ -75,7 +78,7 @@ class TestHarness(
     }
 
     @JvmStatic
-    @Parameterized.Parameters(name = "{0}_{1}_{3}")
+    @Parameterized.Parameters(name = "{0}_{1}_{3}{4}")
     fun data(): Collection<Array<Any>> {
       val testCaseDirs = TEST_CASE_ROOT.listFiles { file: File -> isTestDir(file) }
       val combos =
@@ -89,6 +92,14 @@ class TestHarness(
             mode == OutputMode.KOTLIN && (dir as File).resolve("SKIP_KOTLIN").exists()
           }
           .map { it + (it.last() as File).name }
+          .flatMap { combo ->
+            val dir = combo[2] as File
+            if (dir.resolve("RUN_WITHOUT_OPTIONS").exists()) {
+              listOf(combo + OptionsVariant.WITH, combo + OptionsVariant.WITHOUT)
+            } else {
+              listOf(combo + OptionsVariant.WITH)
+            }
+          }
           .filterNot { (proc, mode, _, _) ->
             // We don't generate Java from KSP
             proc == ProcessorType.KSP && mode == OutputMode.JAVA
@@ -176,10 +187,18 @@ class TestHarness(
       symbolProcessorProvider: SymbolProcessorProvider?,
       classpath: List<File> = emptyList(),
   ): TestCompilationResult {
-    val processorOptions = mapOf("motif.mode" to outputMode.name.lowercase())
-    val sources = getFiles(sourcesDir).asSources()
+    val processorOptions = mapOf("motif.mode" to outputMode.name.lowercase()) + testCaseOptions()
+    val deferredFiles = getDeferredFiles(sourcesDir)
+    val sources = (getFiles(sourcesDir) - deferredFiles.toSet()).asSources()
+    val deferredSources = deferredFiles.associate { it.qualifiedName() to it.readText() }
     val annotationProcessors =
-        annotationProcessor?.let { listOf(it, ComponentProcessor()) } ?: emptyList()
+        annotationProcessor?.let {
+          listOfNotNull(
+              it,
+              ComponentProcessor(),
+              deferredSources.takeIf { it.isNotEmpty() }?.let(::DeferredSourceProcessor),
+          )
+        } ?: emptyList()
     return compile(
         workingDir = Files.createTempDirectory("test-runner").toFile(),
         arguments =
@@ -199,15 +218,38 @@ class TestHarness(
   private fun List<File>.asSources(): List<Source> {
     return mapNotNull { file ->
       val relPath = file.relativeTo(File("../tests/src/main/java")).toString()
-      val qName = relPath.substringBeforeLast(".").replace('/', '.')
       return@mapNotNull when (file.extension) {
-        "java" -> Source.loadJavaSource(file, qName)
+        "java" -> Source.loadJavaSource(file, file.qualifiedName())
         "kt" -> Source.loadKotlinSource(file, relPath)
         else -> null
       }
     }
   }
 
+  private fun File.qualifiedName(): String =
+      relativeTo(SOURCE_ROOT).toString().substringBeforeLast(".").replace('/', '.')
+
+  /**
+   * Java sources listed in the DEFERRED file of [dir], one file name per line. They are only added
+   * by [DeferredSourceProcessor] in the first round, so Motif processes them in the second round.
+   */
+  private fun getDeferredFiles(dir: File): List<File> {
+    val deferredFile = dir.resolve("DEFERRED")
+    if (!deferredFile.exists()) return emptyList()
+    return deferredFile.readLines().filter { it.isNotBlank() }.map { dir.resolve(it.trim()) }
+  }
+
+  /**
+   * Additional processor options of this test case, e.g. motif.shortCircuitDependencies=true. Test
+   * cases with a RUN_WITHOUT_OPTIONS file are also run without them.
+   */
+  private fun testCaseOptions(): Map<String, String> {
+    if (options == OptionsVariant.WITHOUT || !optionsFile.exists()) return emptyMap()
+    val properties = Properties()
+    optionsFile.reader().use { properties.load(it) }
+    return properties.stringPropertyNames().associateWith { properties.getProperty(it) }
+  }
+
   private fun getFiles(dir: File): List<File> =
       dir.walkTopDown()
           .filter {
@@ -266,7 +308,16 @@ class TestHarness(
   @Throws(Throwable::class)
   private fun runSuccessTest(testClass: Class<*>, graph: ResolvedGraph) {
     try {
-      testClass.getMethod("run").invoke(null)
+      // Tests that behave differently depending on the options take them as a parameter.
+      val runWithOptions =
+          testClass.methods.find {
+            it.name == "run" && it.parameterTypes.contentEquals(arrayOf(Properties::class.java))
+          }
+      if (runWithOptions != null) {
+        runWithOptions.invoke(null, Properties().apply { putAll(testCaseOptions()) })
+      } else {
+        testClass.getMethod("run").invoke(null)
+      }
     } catch (e: InvocationTargetException) {
       throw e.cause!!
     }
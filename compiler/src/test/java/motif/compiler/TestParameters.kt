@@ -24,3 +24,12 @@ enum class SourceLanguage {
   JAVA,
   KOTLIN,
 }
+
+/** Whether a test case runs with its options.properties. Named after the test name suffix. */
+enum class OptionsVariant(private val testNameSuffix: String) {
+  WITH(""),
+  WITHOUT("_without_options"),
+  ;
+
+  override fun toString(): String = testNameSuffix
+}
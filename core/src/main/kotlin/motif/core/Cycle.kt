@@ -15,8 +15,6 @@
  */
 package motif.core
 
-import java.util.Stack
-
 /**
  * Finds and returns the first cycle encountered given initial items and a lambda to retrieve the
  * children of an item.
@@ -26,46 +24,131 @@ class Cycle<T>(val path: List<T>) {
   companion object {
 
     fun <T> find(items: Iterable<T>, getChildren: (T) -> Iterable<T>): Cycle<T>? =
-        CycleFinder(items, getChildren).find()
+        CycleFinder(getChildren).find(items)
+
+    /**
+     * Returns one cycle for every strongly connected component that contains a cycle, in the order
+     * in which the components are first reached from [items]. Each cycle is the one [find] would
+     * report when starting from the first reached item of its component.
+     */
+    fun <T> findAll(items: Iterable<T>, getChildren: (T) -> Iterable<T>): List<Cycle<T>> {
+      val components = StronglyConnectedComponents(getChildren).find(items)
+      return components.mapNotNull { component ->
+        val members = component.toSet()
+        CycleFinder<T> { item -> getChildren(item).filter { it in members } }
+            .find(listOf(component.first()))
+      }
+    }
   }
 }
 
-private class CycleFinder<T>(
-    private val items: Iterable<T>,
-    private val getChildren: (T) -> Iterable<T>,
-) {
+/**
+ * Depth-first search that visits every item and edge at most once. Items whose descendants have
+ * been fully explored without finding a cycle can't be part of a later cycle either, so skipping
+ * them yields the same first cycle as an exhaustive search of every path.
+ */
+private class CycleFinder<T>(private val getChildren: (T) -> Iterable<T>) {
 
-  fun find(): Cycle<T>? {
-    val cyclePath = calculateCyclePath(Stack(), items) ?: return null
-    return Cycle(cyclePath)
+  private val pathIndices = HashMap<T, Int>()
+  private val explored = HashSet<T>()
+
+  fun find(items: Iterable<T>): Cycle<T>? {
+    items.forEach { item -> find(item)?.let { cycle -> return cycle } }
+    return null
   }
 
-  private fun calculateCyclePath(path: Stack<T>, items: Iterable<T>): List<T>? {
-    items.forEach { item ->
-      calculateCyclePath(path, item)?.let { cycle ->
-        return cycle
+  private fun find(start: T): Cycle<T>? {
+    if (start in explored) return null
+    // Iterative to support arbitrarily deep graphs.
+    val path = ArrayList<T>()
+    val iterators = ArrayList<Iterator<T>>()
+    fun push(item: T) {
+      pathIndices[item] = path.size
+      path.add(item)
+      iterators.add(getChildren(item).iterator())
+    }
+    push(start)
+    while (path.isNotEmpty()) {
+      val children = iterators.last()
+      if (!children.hasNext()) {
+        val item = path.removeAt(path.size - 1)
+        iterators.removeAt(iterators.size - 1)
+        pathIndices.remove(item)
+        explored.add(item)
+        continue
       }
+      val child = children.next()
+      val seenIndex = pathIndices[child]
+      if (seenIndex != null) {
+        return Cycle(path.subList(seenIndex, path.size) + child)
+      }
+      if (child !in explored) push(child)
     }
-
     return null
   }
+}
 
-  private fun calculateCyclePath(path: Stack<T>, item: T): List<T>? {
-    val seenIndex = path.indexOf(item)
-    if (seenIndex != -1) {
-      return path.subList(seenIndex, path.size) + item
-    }
+/** Tarjan's strongly connected components algorithm, O(V + E). */
+private class StronglyConnectedComponents<T>(private val getChildren: (T) -> Iterable<T>) {
 
-    path.push(item)
+  private val indices = HashMap<T, Int>()
+  private val lowLinks = HashMap<T, Int>()
+  private val stack = ArrayList<T>()
+  private val onStack = HashSet<T>()
+  private val components = ArrayList<List<T>>()
 
-    val children = getChildren(item)
+  /** Returns the components that contain a cycle, ordered by when they were first reached. */
+  fun find(items: Iterable<T>): List<List<T>> {
+    items.forEach { item -> if (item !in indices) visit(item) }
+    return components.sortedBy { indices.getValue(it.first()) }
+  }
 
-    calculateCyclePath(path, children)?.let { cycle ->
-      return cycle
+  private fun visit(start: T) {
+    val path = ArrayList<T>()
+    val iterators = ArrayList<Iterator<T>>()
+    fun push(item: T) {
+      indices[item] = indices.size
+      lowLinks[item] = indices.getValue(item)
+      stack.add(item)
+      onStack.add(item)
+      path.add(item)
+      iterators.add(getChildren(item).iterator())
     }
+    push(start)
+    while (path.isNotEmpty()) {
+      val item = path.last()
+      val children = iterators.last()
+      if (children.hasNext()) {
+        val child = children.next()
+        if (child !in indices) {
+          push(child)
+        } else if (child in onStack) {
+          lowLinks[item] = minOf(lowLinks.getValue(item), indices.getValue(child))
+        }
+        continue
+      }
+      path.removeAt(path.size - 1)
+      iterators.removeAt(iterators.size - 1)
+      if (path.isNotEmpty()) {
+        val parent = path.last()
+        lowLinks[parent] = minOf(lowLinks.getValue(parent), lowLinks.getValue(item))
+      }
+      if (lowLinks.getValue(item) == indices.getValue(item)) {
+        popComponent(item)
+      }
+    }
+  }
 
-    path.pop()
-
-    return null
+  private fun popComponent(root: T) {
+    val component = ArrayList<T>()
+    do {
+      val member = stack.removeAt(stack.size - 1)
+      onStack.remove(member)
+      component.add(member)
+    } while (member != root)
+    val isCyclic = component.size > 1 || root in getChildren(root)
+    if (!isCyclic) return
+    component.sortBy { indices.getValue(it) }
+    components.add(component)
   }
 }
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.core
+
+import java.util.AbstractMap.SimpleImmutableEntry
+
+/*
+ * Minimal persistent collections used by [State]. Updates return a new instance that shares most
+ * of its structure with the original, so copying a State is O(1). Iteration follows insertion
+ * order, matching the LinkedHashMap / LinkedHashSet collections they replace.
+ */
+
+private const val BITS = 5
+private const val WIDTH = 1 shl BITS
+private const val MASK = WIDTH - 1
+
+/** Append-only persistent vector (a 32-way trie with a tail buffer). */
+internal class PersistentList<E>
+private constructor(
+    override val size: Int,
+    private val shift: Int,
+    private val root: Array<Any?>,
+    private val tail: Array<Any?>,
+) : AbstractList<E>() {
+
+  private val tailOffset: Int
+    get() = if (size < WIDTH) 0 else ((size - 1) ushr BITS) shl BITS
+
+  @Suppress("UNCHECKED_CAST")
+  override fun get(index: Int): E {
+    if (index < 0 || index >= size) throw IndexOutOfBoundsException("$index")
+    return arrayFor(index)[index and MASK] as E
+  }
+
+  @Suppress("UNCHECKED_CAST")
+  private fun arrayFor(index: Int): Array<Any?> {
+    if (index >= tailOffset) return tail
+    var node = root
+    var level = shift
+    while (level > 0) {
+      node = node[(index ushr level) and MASK] as Array<Any?>
+      level -= BITS
+    }
+    return node
+  }
+
+  fun plus(element: E): PersistentList<E> {
+    if (size - tailOffset < WIDTH) {
+      val newTail = tail.copyOf(tail.size + 1)
+      newTail[tail.size] = element
+      return PersistentList(size + 1, shift, root, newTail)
+    }
+    val newRoot: Array<Any?>
+    var newShift = shift
+    if ((size ushr BITS) > (1 shl shift)) {
+      newRoot = arrayOfNulls(WIDTH)
+      newRoot[0] = root
+      newRoot[1] = newPath(shift, tail)
+      newShift += BITS
+    } else {
+      newRoot = pushTail(shift, root, tail)
+    }
+    return PersistentList(size + 1, newShift, newRoot, arrayOf(element))
+  }
+
+  fun plusAll(elements: Iterable<E>): PersistentList<E> {
+    var list = this
+    elements.forEach { list = list.plus(it) }
+    return list
+  }
+
+  @Suppress("UNCHECKED_CAST")
+  private fun pushTail(level: Int, parent: Array<Any?>, tailNode: Array<Any?>): Array<Any?> {
+    val subIndex = ((size - 1) ushr level) and MASK
+    val node = parent.copyOf()
+    node[subIndex] =
+        if (level == BITS) {
+          tailNode
+        } else {
+          val child = parent[subIndex] as Array<Any?>?
+          if (child == null) newPath(level - BITS, tailNode)
+          else pushTail(level - BITS, child, tailNode)
+        }
+    return node
+  }
+
+  private fun newPath(level: Int, node: Array<Any?>): Array<Any?> {
+    if (level == 0) return node
+    val path = arrayOfNulls<Any?>(WIDTH)
+    path[0] = newPath(level - BITS, node)
+    return path
+  }
+
+  companion object {
+
+    private val EMPTY = PersistentList<Any?>(0, BITS, arrayOfNulls(WIDTH), emptyArray())
+
+    @Suppress("UNCHECKED_CAST")
+    fun <E> empty(): PersistentList<E> = EMPTY as PersistentList<E>
+  }
+}
+
+/**
+ * Persistent hash array mapped trie. Each entry remembers its position in an append-only key log,
+ * which defines the iteration order. Removed keys leave a stale log entry behind until the log is
+ * compacted.
+ */
+internal class PersistentMap<K, V>
+private constructor(
+    private val root: Node?,
+    private val log: PersistentList<K>,
+    override val size: Int,
+) : AbstractMap<K, V>() {
+
+  @Suppress("UNCHECKED_CAST")
+  override fun get(key: K): V? = root?.find(hash(key), key, 0)?.value as V?
+
+  override fun containsKey(key: K): Boolean = root?.find(hash(key), key, 0) != null
+
+  fun put(key: K, value: V): PersistentMap<K, V> {
+    val hash = hash(key)
+    val existing = root?.find(hash, key, 0)
+    if (existing != null) {
+      if (existing.value === value) return this
+      val leaf = Leaf(hash, key, value, existing.index)
+      return PersistentMap(root!!.insert(leaf, 0), log, size)
+    }
+    val leaf = Leaf(hash, key, value, log.size)
+    val newRoot = root?.insert(leaf, 0) ?: BitmapNode.of(leaf, 0)
+    return PersistentMap(newRoot, log.plus(key), size + 1)
+  }
+
+  fun remove(key: K): PersistentMap<K, V> {
+    val root = root ?: return this
+    val hash = hash(key)
+    if (root.find(hash, key, 0) == null) return this
+    val removed = PersistentMap<K, V>(root.delete(hash, key, 0), log, size - 1)
+    return if (log.size > 2 * removed.size + WIDTH) removed.compact() else removed
+  }
+
+  private fun compact(): PersistentMap<K, V> {
+    var map = empty<K, V>()
+    forEachEntry { key, value -> map = map.put(key, value) }
+    return map
+  }
+
+  override val entries: Set<Map.Entry<K, V>>
+    get() =
+        object : AbstractSet<Map.Entry<K, V>>() {
+
+          override val size: Int
+            get() = this@PersistentMap.size
+
+          override fun iterator(): Iterator<Map.Entry<K, V>> = iterator {
+            forEachEntry { key, value -> yield(SimpleImmutableEntry(key, value)) }
+          }
+        }
+
+  @Suppress("UNCHECKED_CAST")
+  private inline fun forEachEntry(action: (K, V) -> Unit) {
+    val root = root ?: return
+    for (index in 0 until log.size) {
+      val key = log[index]
+      val leaf = root.find(hash(key), key, 0) ?: continue
+      // A key that was removed and added again is only visited at its latest position.
+      if (leaf.index == index) action(key, leaf.value as V)
+    }
+  }
+
+  companion object {
+
+    private val EMPTY = PersistentMap<Any?, Any?>(null, PersistentList.empty(), 0)
+
+    @Suppress("UNCHECKED_CAST")
+    fun <K, V> empty(): PersistentMap<K, V> = EMPTY as PersistentMap<K, V>
+
+    private fun hash(key: Any?): Int {
+      val h = key.hashCode()
+      return h xor (h ushr 16)
+    }
+  }
+}
+
+/** Persistent insertion-ordered set backed by a [PersistentMap]. */
+internal class PersistentSet<E> private constructor(private val map: PersistentMap<E, Boolean>) :
+    AbstractSet<E>() {
+
+  override val size: Int
+    get() = map.size
+
+  override fun contains(element: E): Boolean = map.containsKey(element)
+
+  override fun iterator(): Iterator<E> = map.keys.iterator()
+
+  fun plus(element: E): PersistentSet<E> =
+      if (map.containsKey(element)) this else PersistentSet(map.put(element, true))
+
+  fun plusAll(elements: Iterable<E>): PersistentSet<E> {
+    if (elements === this) return this
+    var set = this
+    elements.forEach { set = set.plus(it) }
+    return set
+  }
+
+  fun minus(element: E): PersistentSet<E> =
+      if (map.containsKey(element)) PersistentSet(map.remove(element)) else this
+
+  companion object {
+
+    private val EMPTY = PersistentSet<Any?>(PersistentMap.empty())
+
+    @Suppress("UNCHECKED_CAST")
+    fun <E> empty(): PersistentSet<E> = EMPTY as PersistentSet<E>
+  }
+}
+
+private class Leaf(val hash: Int, val key: Any?, val value: Any?, val index: Int)
+
+private sealed class Node {
+
+  abstract fun find(hash: Int, key: Any?, shift: Int): Leaf?
+
+  abstract fun insert(leaf: Leaf, shift: Int): Node
+
+  /** Returns null if the node is empty after removing the key. */
+  abstract fun delete(hash: Int, key: Any?, shift: Int): Node?
+}
+
+/** Holds leaves and sub-nodes. Slot positions are given by the set bits of [bitmap]. */
+private class BitmapNode(private val bitmap: Int, private val children: Array<Any>) : Node() {
+
+  override fun find(hash: Int, key: Any?, shift: Int): Leaf? {
+    val bit = bit(hash, shift)
+    if (bitmap and bit == 0) return null
+    return when (val child = children[index(bit)]) {
+      is Leaf -> if (child.hash == hash && child.key == key) child else null
+      else -> (child as Node).find(hash, key, shift + BITS)
+    }
+  }
+
+  override fun insert(leaf: Leaf, shift: Int): Node {
+    val bit = bit(leaf.hash, shift)
+    val index = index(bit)
+    if (bitmap and bit == 0) {
+      val newChildren = arrayOfNulls<Any>(children.size + 1)
+      System.arraycopy(children, 0, newChildren, 0, index)
+      newChildren[index] = leaf
+      System.arraycopy(children, index, newChildren, index + 1, children.size - index)
+      @Suppress("UNCHECKED_CAST")
+      return BitmapNode(bitmap or bit, newChildren as Array<Any>)
+    }
+    val newChild =
+        when (val child = children[index]) {
+          is Leaf ->
+              when {
+                child.hash == leaf.hash && child.key == leaf.key -> leaf
+                child.hash == leaf.hash -> CollisionNode(leaf.hash, arrayOf(child, leaf))
+                else -> of(child, shift + BITS).insert(leaf, shift + BITS)
+              }
+          else -> (child as Node).insert(leaf, shift + BITS)
+        }
+    val newChildren = children.copyOf()
+    newChildren[index] = newChild
+    return BitmapNode(bitmap, newChildren)
+  }
+
+  override fun delete(hash: Int, key: Any?, shift: Int): Node? {
+    val bit = bit(hash, shift)
+    if (bitmap and bit == 0) return this
+    val index = index(bit)
+    val newChild: Any? =
+        when (val child = children[index]) {
+          is Leaf -> if (child.hash == hash && child.key == key) null else child
+          else -> (child as Node).delete(hash, key, shift + BITS)
+        }
+    if (newChild === children[index]) return this
+    if (newChild != null) {
+      val newChildren = children.copyOf()
+      newChildren[index] = newChild
+      return BitmapNode(bitmap, newChildren)
+    }
+    if (children.size == 1) return null
+    val newChildren = arrayOfNulls<Any>(children.size - 1)
+    System.arraycopy(children, 0, newChildren, 0, index)
+    System.arraycopy(children, index + 1, newChildren, index, children.size - index - 1)
+    @Suppress("UNCHECKED_CAST")
+    return BitmapNode(bitmap and bit.inv(), newChildren as Array<Any>)
+  }
+
+  private fun index(bit: Int): Int = Integer.bitCount(bitmap and (bit - 1))
+
+  companion object {
+
+    fun of(leaf: Leaf, shift: Int): BitmapNode = of(leaf, leaf.hash, shift)
+
+    fun of(child: Any, hash: Int, shift: Int): BitmapNode =
+        BitmapNode(bit(hash, shift), arrayOf(child))
+
+    private fun bit(hash: Int, shift: Int): Int = 1 shl ((hash ushr shift) and MASK)
+  }
+}
+
+/** Holds leaves whose keys have the same hash. */
+private class CollisionNode(private val hash: Int, private val leaves: Array<Leaf>) : Node() {
+
+  override fun find(hash: Int, key: Any?, shift: Int): Leaf? =
+      if (hash == this.hash) leaves.find { it.key == key } else null
+
+  override fun insert(leaf: Leaf, shift: Int): Node {
+    if (leaf.hash != hash) {
+      // Push this node one level down next to the new leaf.
+      return BitmapNode.of(this, hash, shift).insert(leaf, shift)
+    }
+    val index = leaves.indexOfFirst { it.key == leaf.key }
+    if (index == -1) return CollisionNode(hash, leaves + leaf)
+    val newLeaves = leaves.copyOf()
+    newLeaves[index] = leaf
+    return CollisionNode(hash, newLeaves)
+  }
+
+  override fun delete(hash: Int, key: Any?, shift: Int): Node? {
+    if (hash != this.hash) return this
+    val index = leaves.indexOfFirst { it.key == key }
+    if (index == -1) return this
+    if (leaves.size == 1) return null
+    return CollisionNode(hash, leaves.filterIndexed { i, _ -> i != index }.toTypedArray())
+  }
+}
@@ -17,6 +17,7 @@ package motif.core
 
 import motif.ast.IrClass
 import motif.ast.IrType
+import motif.models.ChildMethod
 import motif.models.MotifError
 import motif.models.Scope
 import motif.models.Sink
@@ -60,26 +61,111 @@ interface ResolvedGraph {
 
   companion object {
 
-    fun create(initialScopeClasses: List<IrClass>): ResolvedGraph {
-      val scopes = Scope.fromClasses(initialScopeClasses)
-      val scopeGraph = ScopeGraph.create(scopes)
-      scopeGraph.scopeCycleError?.let {
-        return ErrorGraph(it)
+    /**
+     * Resolves the graph rooted at [initialScopeClasses]. By default only the first scope or
+     * dependency cycle is reported. If [reportAllCycles] is true, one cycle is reported for every
+     * strongly connected component instead so that all of them can be fixed at once.
+     *
+     * [checkCanceled] is called before each Scope is resolved and may throw to abort a resolution
+     * that is no longer needed.
+     *
+     * [findPrecompiledDependencies] lets callers resolve Scopes compiled by an earlier compilation
+     * from their generated Dependencies class alone. See [Scope.fromClasses].
+     */
+    fun create(
+        initialScopeClasses: List<IrClass>,
+        reportAllCycles: Boolean = false,
+        checkCanceled: () -> Unit = {},
+        findPrecompiledDependencies: (IrClass) -> IrClass? = { null },
+    ): ResolvedGraph {
+      val scopes = Scope.fromClasses(initialScopeClasses, findPrecompiledDependencies)
+      val scopeGraph = ScopeGraph.create(scopes, reportAllCycles)
+      if (scopeGraph.scopeCycleErrors.isNotEmpty()) {
+        return ErrorGraph(scopeGraph.scopeCycleErrors)
       }
-      return ResolvedGraphFactory(scopeGraph).create()
+      return ResolvedGraphFactory(scopeGraph, reportAllCycles, checkCanceled).create()
+    }
+
+    /**
+     * Resolves the graph rooted at [initialScopeClasses] again after a source change. Scopes of
+     * [previous] for which [isChanged] returns false are reused without being parsed again, and
+     * only new or changed Scopes and their ancestors are resolved again. Falls back to [create] if
+     * [previous] has no resolved state to reuse. [reportAllCycles] and [checkCanceled] are used as
+     * in [create]. Resolved states are only reused if [previous] reported cycles the same way.
+     */
+    fun update(
+        previous: ResolvedGraph,
+        initialScopeClasses: List<IrClass>,
+        reportAllCycles: Boolean = false,
+        checkCanceled: () -> Unit = {},
+        isChanged: (Scope) -> Boolean,
+    ): ResolvedGraph {
+      if (previous !is ValidResolvedGraph) {
+        return create(initialScopeClasses, reportAllCycles, checkCanceled)
+      }
+      val previousScopes: Map<IrType, Scope> =
+          previous.scopes.filterNot(isChanged).associateBy { it.clazz.type }
+      val scopes =
+          Scope.fromClasses(
+              initialScopeClasses,
+              findParsedScope = { scopeClass -> previousScopes[scopeClass.type] },
+          )
+      val scopeGraph = ScopeGraph.create(scopes, reportAllCycles)
+      if (scopeGraph.scopeCycleErrors.isNotEmpty()) {
+        return ErrorGraph(scopeGraph.scopeCycleErrors)
+      }
+      val reusable = previous.takeIf { it.reportAllCycles == reportAllCycles }
+      return ResolvedGraphFactory(scopeGraph, reportAllCycles, checkCanceled, reusable).create()
     }
   }
 }
 
-private class ResolvedGraphFactory(private val scopeGraph: ScopeGraph) {
+private class ResolvedGraphFactory(
+    private val scopeGraph: ScopeGraph,
+    private val reportAllCycles: Boolean,
+    private val checkCanceled: () -> Unit,
+    previous: ValidResolvedGraph? = null,
+) {
 
   private val scopeStates = mutableMapOf<Scope, State>()
   private val childStates = mutableMapOf<ScopeEdge, State>()
 
+  private val typeIds: TypeIds = previous?.let(::reuseStates) ?: TypeIds()
+
+  /**
+   * Takes over the states that [previous] resolved for Scopes that were reused together with their
+   * whole subtree. A Scope's state only depends on its subtree, so these stay valid. Returns the
+   * type ids to resolve the remaining Scopes with. They keep the ids of the nodes in the reused
+   * states and drop those of all other nodes.
+   */
+  private fun reuseStates(previous: ValidResolvedGraph): TypeIds {
+    val previousChildStates: Map<ChildMethod, State> =
+        previous.childStates.entries.associate { (edge, state) -> edge.method to state }
+    val unchanged = mutableMapOf<Scope, Boolean>()
+    fun isUnchanged(scope: Scope): Boolean =
+        unchanged.getOrPut(scope) {
+          scope in previous.scopeStates &&
+              scopeGraph.getChildEdges(scope).all { edge ->
+                edge.method in previousChildStates && isUnchanged(edge.child)
+              }
+        }
+    scopeGraph.scopes.filter(::isUnchanged).forEach { scope ->
+      scopeStates[scope] = previous.scopeStates.getValue(scope)
+      scopeGraph.getChildEdges(scope).forEach { edge ->
+        childStates[edge] = previousChildStates.getValue(edge.method)
+      }
+    }
+    val reusedNodes =
+        (scopeStates.values + childStates.values).flatMap { state ->
+          state.sinkToSources.keys + state.sourceToSinks.keys
+        }
+    return previous.graphState.typeIds.copy(reusedNodes)
+  }
+
   fun create(): ResolvedGraph {
     val states = scopeGraph.roots.map { getState(it) }
-    val state = State.merge(states)
-    return ValidResolvedGraph(scopeGraph, scopeStates, childStates, state)
+    val state = State.merge(typeIds, states)
+    return ValidResolvedGraph(scopeGraph, reportAllCycles, scopeStates, childStates, state)
   }
 
   private fun getState(scope: Scope): State {
@@ -89,6 +175,7 @@ private class ResolvedGraphFactory(private val scopeGraph: ScopeGraph) {
   }
 
   private fun createState(scope: Scope): State {
+    checkCanceled()
     val childStates =
         scopeGraph.getChildEdges(scope).map { childEdge ->
           val childState = getState(childEdge.child).copy()
@@ -97,7 +184,7 @@ private class ResolvedGraphFactory(private val scopeGraph: ScopeGraph) {
           childStates[childEdge] = childState
           childState
         }
-    val state = State.merge(childStates)
+    val state = State.merge(typeIds, childStates)
 
     val factoryMethodSinks = scope.factoryMethods.flatMap { it.sinks }
     state.addSinks(factoryMethodSinks)
@@ -117,17 +204,16 @@ private class ResolvedGraphFactory(private val scopeGraph: ScopeGraph) {
       factoryMethod.sources.forEach { source -> state.addEdges(source, factoryMethod.sinks) }
     }
 
-    state.checkCycle()
+    state.checkCycle(reportAllCycles)
 
     return state
   }
 }
 
-private class ErrorGraph(error: MotifError) : ResolvedGraph {
+private class ErrorGraph(override val errors: List<MotifError>) : ResolvedGraph {
 
   override val roots = emptyList<Scope>()
   override val scopes = emptyList<Scope>()
-  override val errors = listOf(error)
 
   override fun getScope(scopeType: IrType) = null
 
@@ -158,9 +244,10 @@ private class ErrorGraph(error: MotifError) : ResolvedGraph {
 
 private class ValidResolvedGraph(
     private val scopeGraph: ScopeGraph,
-    private val scopeStates: Map<Scope, State>,
-    private val childStates: Map<ScopeEdge, State>,
-    private val graphState: State,
+    val reportAllCycles: Boolean,
+    val scopeStates: Map<Scope, State>,
+    val childStates: Map<ScopeEdge, State>,
+    val graphState: State,
 ) : ResolvedGraph {
 
   private val scopeSinks = mutableMapOf<Scope, Set<Sink>>()
@@ -186,11 +273,16 @@ private class ValidResolvedGraph(
   override fun getSources(scope: Scope) =
       scopeStates.getValue(scope).sourceToSinks.keys.filter { it.scope == scope }
 
-  override fun getSinks(type: Type) = graphState.sinks[type] ?: emptySet<Sink>()
+  override fun getSinks(type: Type) =
+      graphState.typeIds.findTypeId(type)?.let { graphState.sinks[it] } ?: emptySet<Sink>()
 
-  override fun getSinks(irType: IrType) = graphState.irTypeToSinks[irType] ?: emptySet<Sink>()
+  override fun getSinks(irType: IrType) =
+      graphState.typeIds.findIrTypeId(irType)?.let { graphState.irTypeToSinks[it] }
+          ?: emptySet<Sink>()
 
-  override fun getSources(irType: IrType) = graphState.irTypeToSources[irType] ?: emptySet<Source>()
+  override fun getSources(irType: IrType) =
+      graphState.typeIds.findIrTypeId(irType)?.let { graphState.irTypeToSources[it] }
+          ?: emptySet<Source>()
 
   override fun getSinks(scope: Scope) =
       scopeSinks.computeIfAbsent(scope) {
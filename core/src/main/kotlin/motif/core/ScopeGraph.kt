@@ -27,7 +27,8 @@ class ScopeEdge(val parent: Scope, val child: Scope, val method: ChildMethod)
  * Graph of [Scopes] [Scope] as defined by [Scope.childMethods]. Throws an [IllegalStateException]
  * if any of a Scope's childEdge Scopes does not exist in the initial list of Scopes.
  */
-internal class ScopeGraph private constructor(val scopes: List<Scope>) {
+internal class ScopeGraph
+private constructor(val scopes: List<Scope>, private val reportAllCycles: Boolean) {
 
   private val scopeMap: Map<IrType, Scope> = scopes.associateBy { it.clazz.type }
   private val childEdges: Map<Scope, List<ScopeEdge>> =
@@ -40,7 +41,7 @@ internal class ScopeGraph private constructor(val scopes: List<Scope>) {
 
   val roots: List<Scope> = parentEdges.filter { it.value.isEmpty() }.map { it.key }
 
-  val scopeCycleError: ScopeCycleError? = calculateCycle()
+  val scopeCycleErrors: List<ScopeCycleError> = calculateCycles()
 
   val parsingErrors: List<ParsingError> =
       scopes.filterIsInstance<ErrorScope>().map { it.parsingError }
@@ -61,16 +62,22 @@ internal class ScopeGraph private constructor(val scopes: List<Scope>) {
         ScopeEdge(scope, childScope, method)
       }
 
-  private fun calculateCycle(): ScopeCycleError? {
+  private fun calculateCycles(): List<ScopeCycleError> {
     // Sort for stable tests
     val sortedScopes = scopes.sortedBy { it.qualifiedName }
-    val cycle =
-        Cycle.find(sortedScopes) { scope -> getChildEdges(scope).map { it.child } } ?: return null
-    return ScopeCycleError(cycle.path)
+    val getChildren = { scope: Scope -> getChildEdges(scope).map { it.child } }
+    val cycles =
+        if (reportAllCycles) {
+          Cycle.findAll(sortedScopes, getChildren)
+        } else {
+          listOfNotNull(Cycle.find(sortedScopes, getChildren))
+        }
+    return cycles.map { ScopeCycleError(it.path) }
   }
 
   companion object {
 
-    fun create(scopes: List<Scope>): ScopeGraph = ScopeGraph(scopes)
+    fun create(scopes: List<Scope>, reportAllCycles: Boolean = false): ScopeGraph =
+        ScopeGraph(scopes, reportAllCycles)
   }
 }
@@ -20,25 +20,50 @@ import motif.models.Dependencies
 import motif.models.MotifError
 import motif.models.Sink
 import motif.models.Source
-import motif.models.Type
 
-private typealias SetMultiMap<K, V> = MutableMap<K, LinkedHashSet<V>>
+private typealias SetMultiMap<K, V> = PersistentMap<K, PersistentSet<V>>
 
-private fun <K, V> setMultiMap(): SetMultiMap<K, V> = LinkedHashMap()
+private fun <K, V> setMultiMap(): SetMultiMap<K, V> = PersistentMap.empty()
 
-/** Carries state through the ResolvedGraph creation logic. */
+/**
+ * Carries state through the ResolvedGraph creation logic. Backed by persistent collections so that
+ * [copy] is O(1) and [merge] only pays for what the merged states don't already share. Types are
+ * keyed by their [TypeIds] so that lookups don't hash or compare the underlying [IrType]s.
+ */
 internal class State(
-    val sinkToSources: SetMultiMap<Sink, Source> = setMultiMap(),
-    val sourceToSinks: SetMultiMap<Source, Sink> = setMultiMap(),
-    val unsatisfied: MutableSet<Sink> = mutableSetOf(),
-    val errors: MutableList<MotifError> = mutableListOf(),
-    val sinks: SetMultiMap<Type, Sink> = setMultiMap(),
-    val irTypeToSinks: SetMultiMap<IrType, Sink> = setMultiMap(),
-    val irTypeToSources: SetMultiMap<IrType, Source> = setMultiMap(),
-    private val exposeNeeded: MutableSet<Sink> = mutableSetOf(),
-    private val visibleSinks: SetMultiMap<Sink, Source> = setMultiMap(),
+    val typeIds: TypeIds,
+    sinkToSources: SetMultiMap<Sink, Source> = setMultiMap(),
+    sourceToSinks: SetMultiMap<Source, Sink> = setMultiMap(),
+    unsatisfied: PersistentSet<Sink> = PersistentSet.empty(),
+    errors: PersistentList<MotifError> = PersistentList.empty(),
+    sinks: SetMultiMap<Int, Sink> = setMultiMap(),
+    irTypeToSinks: SetMultiMap<Int, Sink> = setMultiMap(),
+    irTypeToSources: SetMultiMap<Int, Source> = setMultiMap(),
+    private var exposeNeeded: PersistentSet<Sink> = PersistentSet.empty(),
+    private var visibleSinks: SetMultiMap<Sink, Source> = setMultiMap(),
 ) {
 
+  var sinkToSources = sinkToSources
+    private set
+
+  var sourceToSinks = sourceToSinks
+    private set
+
+  var unsatisfied = unsatisfied
+    private set
+
+  var errors = errors
+    private set
+
+  var sinks = sinks
+    private set
+
+  var irTypeToSinks = irTypeToSinks
+    private set
+
+  var irTypeToSources = irTypeToSources
+    private set
+
   val edges = LinkedHashMap<Source, List<Sink>>()
 
   fun addSinks(sink: Iterable<Sink>) {
@@ -50,11 +75,11 @@ internal class State(
       throw IllegalStateException("Sink already added.")
     }
 
-    sinkToSources[sink] = LinkedHashSet()
-    visibleSinks[sink] = LinkedHashSet()
-    sinks.computeIfAbsent(sink.type) { LinkedHashSet() }.add(sink)
-    irTypeToSinks.computeIfAbsent(sink.type.type) { LinkedHashSet() }.add(sink)
-    unsatisfied.add(sink)
+    sinkToSources = sinkToSources.put(sink, PersistentSet.empty())
+    visibleSinks = visibleSinks.put(sink, PersistentSet.empty())
+    sinks = sinks.add(typeIds.typeId(sink), sink)
+    irTypeToSinks = irTypeToSinks.add(typeIds.irTypeId(sink), sink)
+    unsatisfied = unsatisfied.plus(sink)
   }
 
   fun addSources(sources: Iterable<Source>) {
@@ -66,88 +91,98 @@ internal class State(
       throw IllegalStateException("Source already added.")
     }
 
-    sourceToSinks[source] = LinkedHashSet()
+    sourceToSinks = sourceToSinks.put(source, PersistentSet.empty())
 
-    val matchingSinks: Set<Sink> = sinks[source.type] ?: LinkedHashSet()
+    val matchingSinks: Set<Sink> = sinks[typeIds.typeId(source)] ?: PersistentSet.empty()
 
     matchingSinks.forEach { matchingSink -> satisfy(matchingSink, source) }
 
-    irTypeToSources.computeIfAbsent(source.type.type) { LinkedHashSet() }.add(source)
+    irTypeToSources = irTypeToSources.add(typeIds.irTypeId(source), source)
   }
 
   fun setDependencies(dependencies: Dependencies) {
-    val declaredTypes: Set<Type> = dependencies.types.toSet()
-    val requiredButNotDeclared: List<Sink> = unsatisfied.filter { !declaredTypes.contains(it.type) }
+    val declaredTypes: Set<Int> = dependencies.types.map(typeIds::typeId).toSet()
+    val requiredButNotDeclared: List<Sink> =
+        unsatisfied.filter { !declaredTypes.contains(typeIds.typeId(it)) }
     requiredButNotDeclared.forEach {
-      errors.add(UnsatisfiedDependencyError(dependencies.scope, it))
-      unsatisfied.remove(it)
+      errors = errors.plus(UnsatisfiedDependencyError(dependencies.scope, it))
+      unsatisfied = unsatisfied.minus(it)
     }
 
-    val visibleButNotDeclared = visibleSinks.keys.filter { !declaredTypes.contains(it.type) }
-    visibleButNotDeclared.forEach { visibleSinks.remove(it) }
+    val visibleButNotDeclared =
+        visibleSinks.keys.filter { !declaredTypes.contains(typeIds.typeId(it)) }
+    visibleButNotDeclared.forEach { visibleSinks = visibleSinks.remove(it) }
   }
 
   fun addEdges(source: Source, sinks: List<Sink>) {
     edges[source] = sinks
   }
 
-  fun checkCycle() {
-    Cycle.find(edges.keys) { source ->
-          edges.getOrDefault(source, emptyList()).flatMap { sink ->
-            sinkToSources.getOrDefault(sink, LinkedHashSet())
-          }
+  fun checkCycle(reportAll: Boolean = false) {
+    val getChildren = { source: Source ->
+      edges.getOrDefault(source, emptyList()).flatMap { sink ->
+        sinkToSources[sink] ?: PersistentSet.empty()
+      }
+    }
+    val cycles =
+        if (reportAll) {
+          Cycle.findAll(edges.keys, getChildren)
+        } else {
+          listOfNotNull(Cycle.find(edges.keys, getChildren))
         }
-        ?.let { cycle -> errors.add(DependencyCycleError(cycle.path)) }
+    cycles.forEach { cycle -> errors = errors.plus(DependencyCycleError(cycle.path)) }
   }
 
   fun requireExpose() {
-    exposeNeeded.addAll(visibleSinks.keys)
+    exposeNeeded = exposeNeeded.plusAll(visibleSinks.keys)
   }
 
   fun copy(): State =
       State(
-          sinkToSources.copy(),
-          sourceToSinks.copy(),
-          unsatisfied.toMutableSet(),
-          errors.toMutableList(),
-          sinks.copy(),
-          irTypeToSinks.copy(),
-          irTypeToSources.copy(),
-          exposeNeeded.toMutableSet(),
-          visibleSinks.copy(),
+          typeIds,
+          sinkToSources,
+          sourceToSinks,
+          unsatisfied,
+          errors,
+          sinks,
+          irTypeToSinks,
+          irTypeToSources,
+          exposeNeeded,
+          visibleSinks,
       )
 
   private fun satisfy(sink: Sink, source: Source) {
-    if (!visibleSinks.contains(sink)) return
-
-    val visibleSources = visibleSinks.getValue(sink)
+    val visibleSources = visibleSinks[sink] ?: return
 
     val alreadySatisfied = visibleSources.isNotEmpty()
     val exposeConditionMet = !exposeNeeded.contains(sink) || source.isExposed
 
     if (unsatisfied.contains(sink) && !exposeConditionMet) {
-      errors.add(UnexposedSourceError(source, sink))
+      errors = errors.plus(UnexposedSourceError(source, sink))
       return
     }
 
     if (alreadySatisfied && exposeConditionMet) {
-      errors.add(AlreadySatisfiedError(source.scope, source, visibleSources.toList()))
+      errors = errors.plus(AlreadySatisfiedError(source.scope, source, visibleSources.toList()))
     }
 
-    if (source.isOverriding) {
-      visibleSinks.remove(sink)
-    }
+    visibleSinks =
+        if (source.isOverriding) {
+          visibleSinks.remove(sink)
+        } else {
+          visibleSinks.put(sink, visibleSources.plus(source))
+        }
 
-    sinkToSources.getValue(sink).add(source)
-    sourceToSinks.getValue(source).add(sink)
-    visibleSources.add(source)
-    unsatisfied.remove(sink)
+    sinkToSources = sinkToSources.put(sink, sinkToSources.getValue(sink).plus(source))
+    sourceToSinks = sourceToSinks.put(source, sourceToSinks.getValue(source).plus(sink))
+    unsatisfied = unsatisfied.minus(sink)
   }
 
   companion object {
 
-    fun merge(states: List<State>): State =
+    fun merge(typeIds: TypeIds, states: List<State>): State =
         State(
+            typeIds,
             states.map { it.sinkToSources }.merge(),
             states.map { it.sourceToSinks }.merge(),
             states.map { it.unsatisfied }.merge(),
@@ -161,26 +196,41 @@ internal class State(
   }
 }
 
-private fun <K, V> SetMultiMap<K, V>.copy(): SetMultiMap<K, V> {
-  val map = setMultiMap<K, V>()
-  forEach { k, set -> map[k] = LinkedHashSet(set) }
-  return map
-}
+private fun <K, V> SetMultiMap<K, V>.add(key: K, value: V): SetMultiMap<K, V> =
+    put(key, (this[key] ?: PersistentSet.empty()).plus(value))
 
-private fun <T> List<MutableSet<T>>.merge() = merge { mutableSetOf() }
+// Each merge starts from the first collection, so a single state is merged without copying and
+// additional states only contribute the entries that the result doesn't share with them yet.
 
-private fun <T> List<MutableList<T>>.merge() = merge { mutableListOf() }
+@JvmName("mergeSets")
+private fun <T> List<PersistentSet<T>>.merge(): PersistentSet<T> =
+    fold(PersistentSet.empty()) { merged, set ->
+      if (merged.isEmpty()) set else merged.plusAll(set)
+    }
 
-private fun <C : MutableCollection<T>, T> List<C>.merge(newCollection: () -> C): C {
-  val collection = newCollection()
-  forEach { collection.addAll(it) }
-  return collection
-}
+@JvmName("mergeLists")
+private fun <T> List<PersistentList<T>>.merge(): PersistentList<T> =
+    fold(PersistentList.empty()) { merged, list ->
+      if (merged.isEmpty()) list else merged.plusAll(list)
+    }
 
-private fun <K, V> List<SetMultiMap<K, V>>.merge(): SetMultiMap<K, V> {
-  val map = setMultiMap<K, V>()
-  forEach { other ->
-    other.forEach { k, v -> map.computeIfAbsent(k) { LinkedHashSet() }.addAll(v) }
-  }
-  return map
-}
+private fun <K, V> List<SetMultiMap<K, V>>.merge(): SetMultiMap<K, V> =
+    fold(setMultiMap()) { merged, map ->
+      when {
+        merged.isEmpty() -> map
+        merged === map -> merged
+        else -> {
+          var result = merged
+          map.forEach { (key, values) ->
+            val existing = result[key]
+            result =
+                when {
+                  existing == null -> result.put(key, values)
+                  existing === values -> result
+                  else -> result.put(key, existing.plusAll(values))
+                }
+          }
+          result
+        }
+      }
+    }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.core
+
+import java.util.IdentityHashMap
+import motif.ast.IrType
+import motif.models.Node
+import motif.models.Type
+
+/**
+ * Interns [Type]s and [IrType]s into dense int ids. A node's types are hashed and compared once,
+ * when the node is first seen, so that [State] only hashes and compares ints afterwards.
+ */
+internal class TypeIds {
+
+  private val typeIds = HashMap<Type, Int>()
+  private val irTypeIds = HashMap<IrType, Int>()
+  private val nodeIds = IdentityHashMap<Node, NodeIds>()
+  private var nextTypeId = 0
+  private var nextIrTypeId = 0
+
+  fun typeId(node: Node): Int = nodeIds(node).typeId
+
+  fun irTypeId(node: Node): Int = nodeIds(node).irTypeId
+
+  fun typeId(type: Type): Int = typeIds.getOrPut(type) { nextTypeId++ }
+
+  /** Returns the id of [type] without interning it, or null if no node has that type. */
+  fun findTypeId(type: Type): Int? = typeIds[type]
+
+  /** Returns the id of [irType] without interning it, or null if no node has that type. */
+  fun findIrTypeId(irType: IrType): Int? = irTypeIds[irType]
+
+  /**
+   * Returns a copy that only keeps the ids of [nodes]. The copy never hands out an id of this
+   * instance for a different type, so [State]s that hold [nodes] can be merged with States built by
+   * the copy. Other nodes and their types are dropped so that the copy doesn't retain them.
+   */
+  fun copy(nodes: Iterable<Node>): TypeIds =
+      TypeIds().also { copy ->
+        copy.nextTypeId = nextTypeId
+        copy.nextIrTypeId = nextIrTypeId
+        nodes.forEach { node ->
+          val ids = nodeIds(node)
+          copy.nodeIds[node] = ids
+          copy.typeIds[node.type] = ids.typeId
+          copy.irTypeIds[node.type.type] = ids.irTypeId
+        }
+      }
+
+  private fun nodeIds(node: Node): NodeIds =
+      nodeIds.getOrPut(node) {
+        NodeIds(typeId(node.type), irTypeIds.getOrPut(node.type.type) { nextIrTypeId++ })
+      }
+
+  private class NodeIds(val typeId: Int, val irTypeId: Int)
+}
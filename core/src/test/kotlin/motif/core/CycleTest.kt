@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.core
+
+import com.google.common.truth.Truth.assertThat
+import kotlin.random.Random
+import org.junit.Test
+
+class CycleTest {
+
+  @Test
+  fun findReturnsFirstCycle() {
+    val graph = mapOf(1 to listOf(2), 2 to listOf(3, 1), 3 to listOf(2))
+    val cycle = Cycle.find(listOf(1)) { graph[it] ?: emptyList() }
+    assertThat(cycle!!.path).containsExactly(2, 3, 2).inOrder()
+  }
+
+  @Test
+  fun findReturnsNullForAcyclicGraph() {
+    val graph = mapOf(1 to listOf(2, 3), 2 to listOf(3), 3 to listOf(4))
+    assertThat(Cycle.find(listOf(1, 2, 3, 4)) { graph[it] ?: emptyList() }).isNull()
+  }
+
+  @Test
+  fun findAllReturnsOneCyclePerComponent() {
+    val graph =
+        mapOf(
+            1 to listOf(2),
+            2 to listOf(1, 3),
+            3 to listOf(4),
+            4 to listOf(4, 5),
+            5 to listOf(6),
+            6 to listOf(5),
+        )
+    val cycles = Cycle.findAll(listOf(1, 2, 3, 4, 5, 6)) { graph[it] ?: emptyList() }
+    assertThat(cycles.map { it.path })
+        .containsExactly(listOf(1, 2, 1), listOf(4, 4), listOf(5, 6, 5))
+        .inOrder()
+  }
+
+  @Test
+  fun deepGraphs() {
+    val size = 100_000
+    val children = { item: Int -> if (item + 1 < size) listOf(item + 1) else listOf(0) }
+    assertThat(Cycle.find(listOf(0), children)!!.path).hasSize(size + 1)
+    assertThat(Cycle.findAll(listOf(0), children)).hasSize(1)
+  }
+
+  @Test
+  fun randomGraphs() {
+    repeat(500) { seed ->
+      val random = Random(seed)
+      val size = 1 + random.nextInt(20)
+      val graph =
+          (0 until size).associateWith { List(random.nextInt(3)) { random.nextInt(size) } }
+      val children = { item: Int -> graph.getValue(item) }
+      val items = (0 until size).toList()
+
+      val cyclicComponents = cyclicComponents(graph)
+      val cycle = Cycle.find(items, children)
+      val cycles = Cycle.findAll(items, children)
+
+      assertThat(cycle != null).isEqualTo(cyclicComponents.isNotEmpty())
+      assertThat(cycles).hasSize(cyclicComponents.size)
+      (listOfNotNull(cycle) + cycles).forEach { assertIsCycle(it.path, graph) }
+      assertThat(cycles.map { found -> cyclicComponents.single { found.path[0] in it } })
+          .containsNoDuplicates()
+    }
+  }
+
+  private fun assertIsCycle(path: List<Int>, graph: Map<Int, List<Int>>) {
+    assertThat(path.size).isAtLeast(2)
+    assertThat(path.last()).isEqualTo(path.first())
+    assertThat(path.dropLast(1)).containsNoDuplicates()
+    path.zipWithNext().forEach { (from, to) -> assertThat(graph.getValue(from)).contains(to) }
+  }
+
+  /** Strongly connected components that contain a cycle, computed from pairwise reachability. */
+  private fun cyclicComponents(graph: Map<Int, List<Int>>): Set<Set<Int>> {
+    val reachable =
+        graph.keys.associateWith { start ->
+          val visited = mutableSetOf<Int>()
+          val queue = ArrayDeque(graph.getValue(start))
+          while (queue.isNotEmpty()) {
+            val item = queue.removeFirst()
+            if (visited.add(item)) queue.addAll(graph.getValue(item))
+          }
+          visited
+        }
+    return graph.keys
+        .filter { it in reachable.getValue(it) }
+        .map { item ->
+          graph.keys.filter { item in reachable.getValue(it) && it in reachable.getValue(item) }
+        }
+        .map { it.toSet() }
+        .toSet()
+  }
+}
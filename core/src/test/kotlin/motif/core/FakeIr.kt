@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.core
+
+import kotlin.random.Random
+import kotlin.reflect.KClass
+import motif.ast.IrAnnotation
+import motif.ast.IrClass
+import motif.ast.IrField
+import motif.ast.IrMethod
+import motif.ast.IrModifier
+import motif.ast.IrParameter
+import motif.ast.IrType
+
+/*
+ * Minimal in-memory IR so that the resolver can be exercised on many generated graphs without
+ * running a compiler.
+ */
+
+internal class FakeAnnotation(annotationClass: KClass<out Annotation>) : IrAnnotation {
+
+  override val className: String = annotationClass.java.name
+  override val type: IrType? = null
+  override val members: List<IrMethod> = emptyList()
+  override val annotationValueMap: Map<String, Any?> = emptyMap()
+
+  override fun matchesClass(annotationClass: KClass<out Annotation>): Boolean =
+      annotationClass.java.name == className
+
+  override fun equals(other: Any?): Boolean =
+      other is FakeAnnotation && other.className == className
+
+  override fun hashCode(): Int = className.hashCode()
+}
+
+internal class FakeType(override val qualifiedName: String, private val clazz: IrClass?) : IrType {
+
+  override val isVoid: Boolean = false
+  override val isPrimitive: Boolean = false
+
+  override fun resolveClass(): IrClass? = clazz
+
+  override fun isAssignableTo(type: IrType): Boolean = type == this
+
+  override fun equals(other: Any?): Boolean =
+      other is FakeType && other.qualifiedName == qualifiedName
+
+  override fun hashCode(): Int = qualifiedName.hashCode()
+
+  override fun toString(): String = qualifiedName
+}
+
+internal class FakeParameter(override val type: IrType, override val name: String) : IrParameter {
+
+  override val annotations: List<IrAnnotation> = emptyList()
+}
+
+internal class FakeMethod(
+    override val name: String,
+    override val returnType: IrType,
+    override val parameters: List<IrParameter> = emptyList(),
+    override val annotations: List<IrAnnotation> = emptyList(),
+) : IrMethod {
+
+  override val isConstructor: Boolean = false
+  override val modifiers: Set<IrModifier> = emptySet()
+}
+
+internal class FakeClass(
+    qualifiedName: String,
+    override val kind: IrClass.Kind,
+    override val annotations: List<IrAnnotation> = emptyList(),
+) : IrClass {
+
+  override val type: IrType = FakeType(qualifiedName, this)
+  override val supertypes: List<IrType> = emptyList()
+  override val typeArguments: List<IrType> = emptyList()
+  override val methods: MutableList<IrMethod> = mutableListOf()
+  override val nestedClasses: MutableList<IrClass> = mutableListOf()
+  override val fields: List<IrField> = emptyList()
+  override val constructors: List<IrMethod> = emptyList()
+  override val modifiers: Set<IrModifier> = emptySet()
+}
+
+private val SCOPE = FakeAnnotation(motif.Scope::class)
+private val OBJECTS = FakeAnnotation(motif.Objects::class)
+private val EXPOSE = FakeAnnotation(motif.Expose::class)
+private val DO_NOT_CACHE = FakeAnnotation(motif.DoNotCache::class)
+
+/**
+ * Returns the root candidates of a random Scope graph. Child methods mostly point to later Scopes,
+ * so the graph is usually acyclic unless [backEdges] is true. Factory methods, parameters and
+ * access methods are drawn from a small pool of types so that missing, duplicate and cyclic
+ * dependencies are all common.
+ */
+internal fun randomScopeClasses(
+    random: Random,
+    scopeCount: Int,
+    typeCount: Int,
+    backEdges: Boolean,
+): List<IrClass> {
+  val types = (0 until typeCount).map { FakeClass("t.T$it", IrClass.Kind.CLASS).type }
+  val scopes =
+      (0 until scopeCount).map { FakeClass("s.S$it", IrClass.Kind.INTERFACE, listOf(SCOPE)) }
+  scopes.forEachIndexed { i, scope ->
+    repeat(random.nextInt(3)) { c ->
+      val child =
+          when {
+            backEdges && random.nextInt(20) == 0 -> random.nextInt(scopeCount)
+            i + 1 < scopeCount -> random.nextInt(i + 1, scopeCount)
+            else -> return@repeat
+          }
+      val parameters =
+          if (random.nextInt(4) == 0) listOf(FakeParameter(types.random(random), "p$c"))
+          else emptyList()
+      scope.methods += FakeMethod("child$c", scopes[child].type, parameters)
+    }
+    repeat(random.nextInt(3)) { a -> scope.methods += FakeMethod("access$a", types.random(random)) }
+    if (random.nextInt(5) == 0) return@forEachIndexed
+    val objects = FakeClass("s.S$i.Objects", IrClass.Kind.CLASS, listOf(OBJECTS))
+    val returnTypes = mutableSetOf<IrType>()
+    repeat(random.nextInt(5)) { f ->
+      val returnType = types.random(random)
+      if (!returnTypes.add(returnType) && random.nextInt(4) != 0) return@repeat
+      val parameters =
+          (0 until random.nextInt(3)).map { FakeParameter(types.random(random), "p$it") }
+      val annotations =
+          listOfNotNull(
+              EXPOSE.takeIf { random.nextInt(3) != 0 },
+              DO_NOT_CACHE.takeIf { random.nextInt(5) == 0 },
+          )
+      objects.methods += FakeMethod("f$f", returnType, parameters, annotations)
+    }
+    scope.nestedClasses += objects
+  }
+  return scopes
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.core
+
+import com.google.common.truth.Truth.assertThat
+import kotlin.random.Random
+import org.junit.Test
+
+class PersistentTest {
+
+  /** Only 8 distinct hashes in the high bits, so keys share deep trie paths and collision nodes. */
+  private data class Key(val id: Int) {
+    override fun hashCode(): Int = (id % 8) shl 27
+  }
+
+  @Test
+  fun listMatchesArrayList() {
+    var list = PersistentList.empty<Int>()
+    val expected = ArrayList<Int>()
+    val snapshots = mutableListOf<Pair<PersistentList<Int>, List<Int>>>()
+    // Crosses several trie levels: 32, 32 * 32 and 32 * 32 * 32 elements.
+    repeat(40_000) { i ->
+      list = list.plus(i)
+      expected.add(i)
+      if (i % 997 == 0) snapshots.add(list to expected.toList())
+    }
+    assertThat(list).containsExactlyElementsIn(expected).inOrder()
+    snapshots.forEach { (snapshot, elements) ->
+      assertThat(snapshot).containsExactlyElementsIn(elements).inOrder()
+    }
+  }
+
+  @Test
+  fun mapMatchesLinkedHashMap() {
+    repeat(200) { seed ->
+      val random = Random(seed)
+      var map = PersistentMap.empty<Key, Int>()
+      val expected = LinkedHashMap<Key, Int>()
+      val snapshots = mutableListOf<Pair<PersistentMap<Key, Int>, Map<Key, Int>>>()
+      repeat(random.nextInt(2000)) {
+        val key = Key(random.nextInt(100))
+        if (random.nextInt(3) == 0) {
+          map = map.remove(key)
+          expected.remove(key)
+        } else {
+          val value = random.nextInt(4)
+          map = map.put(key, value)
+          expected[key] = value
+        }
+        if (random.nextInt(50) == 0) snapshots.add(map to LinkedHashMap(expected))
+      }
+      assertMapEquals(map, expected)
+      // Older versions are unaffected by later updates.
+      snapshots.forEach { (snapshot, entries) -> assertMapEquals(snapshot, entries) }
+    }
+  }
+
+  @Test
+  fun mapKeepsPositionOfUpdatedKeys() {
+    val map =
+        PersistentMap.empty<String, Int>()
+            .put("a", 1)
+            .put("b", 2)
+            .put("c", 3)
+            .put("a", 4)
+            .remove("b")
+            .put("b", 5)
+    assertThat(map.entries.map { it.toPair() })
+        .containsExactly("a" to 4, "c" to 3, "b" to 5)
+        .inOrder()
+  }
+
+  @Test
+  fun mapPutOfSameValueReturnsSameInstance() {
+    val value = Any()
+    val map = PersistentMap.empty<String, Any>().put("a", value)
+    assertThat(map.put("a", value)).isSameInstanceAs(map)
+    assertThat(map.remove("b")).isSameInstanceAs(map)
+  }
+
+  @Test
+  fun setMatchesLinkedHashSet() {
+    repeat(200) { seed ->
+      val random = Random(seed)
+      var set = PersistentSet.empty<Key>()
+      val expected = LinkedHashSet<Key>()
+      repeat(random.nextInt(2000)) {
+        val key = Key(random.nextInt(100))
+        if (random.nextInt(3) == 0) {
+          set = set.minus(key)
+          expected.remove(key)
+        } else {
+          set = set.plus(key)
+          expected.add(key)
+        }
+      }
+      assertThat(set).containsExactlyElementsIn(expected).inOrder()
+      expected.forEach { assertThat(set.contains(it)).isTrue() }
+    }
+  }
+
+  @Test
+  fun setPlusAllOfItselfReturnsSameInstance() {
+    val set = PersistentSet.empty<Int>().plusAll(listOf(1, 2, 3))
+    assertThat(set.plusAll(set)).isSameInstanceAs(set)
+    assertThat(set.plus(2)).isSameInstanceAs(set)
+    assertThat(set.minus(4)).isSameInstanceAs(set)
+  }
+
+  private fun assertMapEquals(map: PersistentMap<Key, Int>, expected: Map<Key, Int>) {
+    assertThat(map.size).isEqualTo(expected.size)
+    assertThat(map.entries.map { it.toPair() })
+        .containsExactlyElementsIn(expected.entries.map { it.toPair() })
+        .inOrder()
+    (0 until 100).map(::Key).forEach { key ->
+      assertThat(map.containsKey(key)).isEqualTo(key in expected)
+      assertThat(map[key]).isEqualTo(expected[key])
+    }
+  }
+}
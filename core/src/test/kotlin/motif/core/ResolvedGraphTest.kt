@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.core
+
+import com.google.common.truth.Truth.assertThat
+import kotlin.random.Random
+import motif.models.AccessMethodSink
+import motif.models.ChildParameterSource
+import motif.models.FactoryMethodSink
+import motif.models.FactoryMethodSource
+import motif.models.MotifError
+import motif.models.Node
+import motif.models.ScopeSource
+import motif.models.SpreadSource
+import org.junit.Test
+
+/**
+ * Resolves many random graphs and compares the results of different ways to resolve the same graph,
+ * which all have to agree on every query.
+ */
+class ResolvedGraphTest {
+
+  @Test
+  fun createIsDeterministic() {
+    forEachRandomGraph { classes, _ ->
+      assertThat(describe(ResolvedGraph.create(classes)))
+          .isEqualTo(describe(ResolvedGraph.create(classes)))
+    }
+  }
+
+  @Test
+  fun updateMatchesCreate() {
+    forEachRandomGraph { classes, random ->
+      val created = ResolvedGraph.create(classes)
+      val updated = ResolvedGraph.update(created, classes) { random.nextInt(4) == 0 }
+      assertThat(describe(updated)).isEqualTo(describe(created))
+
+      val unchanged = ResolvedGraph.update(updated, classes) { false }
+      assertThat(describe(unchanged)).isEqualTo(describe(created))
+    }
+  }
+
+  @Test
+  fun updateReportsAllCycles() {
+    forEachRandomGraph { classes, random ->
+      val expected = describe(ResolvedGraph.create(classes, reportAllCycles = true))
+      val created = ResolvedGraph.create(classes)
+      val updated =
+          ResolvedGraph.update(created, classes, reportAllCycles = true) { random.nextInt(4) == 0 }
+      assertThat(describe(updated)).isEqualTo(expected)
+
+      val unchanged = ResolvedGraph.update(updated, classes, reportAllCycles = true) { false }
+      assertThat(describe(unchanged)).isEqualTo(expected)
+    }
+  }
+
+  @Test
+  fun reportAllCyclesIncludesFirstCycle() {
+    forEachRandomGraph { classes, _ ->
+      val first = ResolvedGraph.create(classes).errors.map(::describe)
+      val all = ResolvedGraph.create(classes, reportAllCycles = true).errors.map(::describe)
+      assertThat(all).containsAtLeastElementsIn(first)
+      assertThat(all.isEmpty()).isEqualTo(first.isEmpty())
+    }
+  }
+
+  private fun forEachRandomGraph(test: (List<motif.ast.IrClass>, Random) -> Unit) {
+    repeat(300) { seed ->
+      val random = Random(seed)
+      val classes =
+          randomScopeClasses(
+              random,
+              scopeCount = 3 + seed % 12,
+              typeCount = 2 + seed % 9,
+              backEdges = seed % 3 == 0,
+          )
+      test(classes, random)
+    }
+  }
+
+  private fun describe(graph: ResolvedGraph): String = buildString {
+    graph.errors.forEach { appendLine(describe(it)) }
+    graph.scopes.sortedBy { it.qualifiedName }.forEach { scope ->
+      val children = graph.getChildEdges(scope).map { it.child.qualifiedName }
+      appendLine("${scope.qualifiedName} children=$children")
+      graph.getUnsatisfied(scope).forEach { (type, sinks) ->
+        appendLine("  unsatisfied $type ${sinks.map(::describe)}")
+      }
+      graph.getSinks(scope).forEach { sink ->
+        appendLine("  ${describe(sink)} providers=${graph.getProviders(sink).map(::describe)}")
+      }
+      graph.getSources(scope).forEach { source ->
+        appendLine(
+            "  ${describe(source)} consumers=${graph.getConsumers(source).map(::describe)} " +
+                "required=${graph.getRequired(source).map(::describe)}")
+      }
+    }
+  }
+
+  private fun describe(error: MotifError): String =
+      when (error) {
+        is ScopeCycleError -> "ScopeCycle ${error.path.map { it.qualifiedName }}"
+        is DependencyCycleError -> "DependencyCycle ${error.path.map(::describe)}"
+        is UnsatisfiedDependencyError ->
+            "Unsatisfied ${error.top.qualifiedName} ${describe(error.sink)}"
+        is UnexposedSourceError -> "Unexposed ${describe(error.source)} ${describe(error.sink)}"
+        is AlreadySatisfiedError ->
+            "AlreadySatisfied ${error.scope.qualifiedName} ${describe(error.source)} " +
+                error.existingSources.map(::describe)
+        else -> error.javaClass.simpleName
+      }
+
+  private fun describe(node: Node): String {
+    val site =
+        when (node) {
+          is FactoryMethodSource -> node.factoryMethod.name
+          is ScopeSource -> "implicit"
+          is ChildParameterSource ->
+              "${node.parameter.method.method.name}(${node.parameter.parameter.name})"
+          is SpreadSource -> "${node.spreadMethod.spread.factoryMethod.name}.spread"
+          is FactoryMethodSink ->
+              "${node.parameter.factoryMethod.name}(${node.parameter.parameter.name})"
+          is AccessMethodSink -> "${node.accessMethod.method.name}()"
+        }
+    return "${node.scope.simpleName}.$site"
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.core
+
+import com.google.common.truth.Truth.assertThat
+import kotlin.random.Random
+import motif.models.Node
+import org.junit.Test
+
+class TypeIdsTest {
+
+  @Test
+  fun idsMatchTypeEquality() {
+    repeat(50) { seed ->
+      val nodes = nodes(seed)
+      val typeIds = TypeIds()
+      nodes.forEach { a ->
+        nodes.forEach { b ->
+          assertThat(typeIds.typeId(a) == typeIds.typeId(b)).isEqualTo(a.type == b.type)
+          assertThat(typeIds.irTypeId(a) == typeIds.irTypeId(b))
+              .isEqualTo(a.type.type == b.type.type)
+        }
+      }
+      nodes.forEach { node ->
+        assertThat(typeIds.findTypeId(node.type)).isEqualTo(typeIds.typeId(node))
+        assertThat(typeIds.findIrTypeId(node.type.type)).isEqualTo(typeIds.irTypeId(node))
+      }
+    }
+  }
+
+  @Test
+  fun findDoesNotIntern() {
+    val node = nodes(0).first()
+    val typeIds = TypeIds()
+    assertThat(typeIds.findTypeId(node.type)).isNull()
+    assertThat(typeIds.findIrTypeId(node.type.type)).isNull()
+    assertThat(typeIds.findTypeId(node.type)).isNull()
+  }
+
+  @Test
+  fun copyKeepsOnlyGivenNodes() {
+    val nodes = nodes(1)
+    val kept = nodes.filterIndexed { index, _ -> index % 2 == 0 }
+    val dropped = nodes.filter { node -> kept.none { it.type.type == node.type.type } }
+    val typeIds = TypeIds()
+    nodes.forEach { typeIds.typeId(it) }
+
+    val copy = typeIds.copy(kept)
+
+    kept.forEach { node ->
+      assertThat(copy.findTypeId(node.type)).isEqualTo(typeIds.typeId(node))
+      assertThat(copy.findIrTypeId(node.type.type)).isEqualTo(typeIds.irTypeId(node))
+    }
+    assertThat(dropped).isNotEmpty()
+    dropped.forEach { node ->
+      assertThat(copy.findTypeId(node.type)).isNull()
+      assertThat(copy.findIrTypeId(node.type.type)).isNull()
+    }
+  }
+
+  @Test
+  fun copyDoesNotReuseIds() {
+    val nodes = nodes(1)
+    val kept = nodes.filterIndexed { index, _ -> index % 2 == 0 }
+    val typeIds = TypeIds()
+    nodes.forEach { typeIds.typeId(it) }
+
+    val copy = typeIds.copy(kept)
+    nodes.forEach { copy.typeId(it) }
+
+    nodes.forEach { a ->
+      kept.forEach { b ->
+        assertThat(copy.typeId(a) == copy.typeId(b)).isEqualTo(a.type == b.type)
+        assertThat(copy.irTypeId(a) == copy.irTypeId(b)).isEqualTo(a.type.type == b.type.type)
+      }
+    }
+  }
+
+  private fun nodes(seed: Int): List<Node> {
+    val classes = randomScopeClasses(Random(seed), scopeCount = 6, typeCount = 5, backEdges = false)
+    val graph = ResolvedGraph.create(classes)
+    return graph.scopes.flatMap { graph.getSources(it) + graph.getSinks(it) }
+  }
+}
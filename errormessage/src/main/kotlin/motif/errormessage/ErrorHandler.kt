@@ -27,6 +27,7 @@ import motif.models.DependencyMethodWithParameters
 import motif.models.DuplicatedChildParameterSource
 import motif.models.DuplicatedDependenciesMethod
 import motif.models.InjectAnnotationRequired
+import motif.models.InvalidDeferredParameter
 import motif.models.InvalidFactoryMethod
 import motif.models.InvalidQualifier
 import motif.models.MotifError
@@ -68,6 +69,7 @@ internal interface ErrorHandler {
                 is VoidFactoryMethod -> VoidFactoryMethodHandler(error)
                 is NullableFactoryMethod -> NullableFactoryMethodHandler(error)
                 is NullableParameter -> NullableParameterHandler(error)
+                is InvalidDeferredParameter -> InvalidDeferredParameterHandler(error)
                 is NullableDynamicDependency -> NullableDynamicDependencyHandler(error)
                 is InvalidFactoryMethod -> InvalidFactoryMethodHandler(error)
                 is UnspreadableType -> UnspreadableTypeHandler(error)
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.errormessage
+
+import motif.models.InvalidDeferredParameter
+
+internal class InvalidDeferredParameterHandler(private val error: InvalidDeferredParameter) :
+    ErrorHandler {
+
+  override val name = "INVALID DEFERRED PARAMETER"
+
+  override fun StringBuilder.handle() {
+    appendLine(
+        """
+            Provider and Lazy parameters must request a concrete type:
+
+              [Method]
+                ${error.owner.qualifiedName}.${error.method.name}
+
+              [Parameter]
+                ${error.parameter.type.qualifiedName} ${error.parameter.name}
+
+            Suggestions:
+              * Replace wildcards and type variables with the requested type, e.g. Lazy<Foo>.
+      """
+            .trimIndent(),
+    )
+  }
+}
@@ -47,6 +47,9 @@ class IntelliJClass(
     psiClassType.superTypes.map { IntelliJType(project, it) }
   }
 
+  override val rawQualifiedName: String
+    get() = psiClass.qualifiedName ?: super.rawQualifiedName
+
   override val typeArguments: List<IrType> by lazy {
     psiClassType
         .typeArguments()
@@ -19,6 +19,7 @@ import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiTreeChangeEvent
 import com.intellij.psi.PsiTreeChangeListener
 import com.intellij.psi.PsiWhiteSpace
+import com.intellij.psi.impl.PsiTreeChangeEventImpl
 
 class ChildChangeListener(private val callback: (PsiElement) -> Unit) : PsiTreeChangeListener {
 
@@ -48,6 +49,9 @@ class ChildChangeListener(private val callback: (PsiElement) -> Unit) : PsiTreeC
 
   override fun childrenChanged(event: PsiTreeChangeEvent) {
     log("childrenChanged", event)
+    // Generic events follow the specific events of the same change, which are reported already.
+    if ((event as? PsiTreeChangeEventImpl)?.isGenericChange == true) return
+    event.parent?.let(callback)
   }
 
   override fun propertyChanged(event: PsiTreeChangeEvent) {
@@ -69,7 +73,8 @@ class ChildChangeListener(private val callback: (PsiElement) -> Unit) : PsiTreeC
   override fun childRemoved(event: PsiTreeChangeEvent) {
     log("childRemoved", event)
     if (event.child is PsiWhiteSpace) return
-    callback(event.child)
+    // The removed child is detached already, so report the parent it was removed from.
+    event.parent?.let(callback)
   }
 
   override fun childAdded(event: PsiTreeChangeEvent) {
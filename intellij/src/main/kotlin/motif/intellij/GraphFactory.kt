@@ -16,65 +16,62 @@
 package motif.intellij
 
 import com.intellij.openapi.project.Project
-import com.intellij.openapi.roots.ProjectFileIndex
-import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.JavaPsiFacade
 import com.intellij.psi.PsiClass
 import com.intellij.psi.PsiElementFactory
-import com.intellij.psi.PsiJavaFile
-import com.intellij.psi.PsiManager
-import motif.Scope
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.psi.search.searches.AnnotatedElementsSearch
 import motif.ast.IrClass
 import motif.ast.intellij.IntelliJClass
 import motif.core.ResolvedGraph
-import org.jetbrains.kotlin.psi.KtClass
-import org.jetbrains.kotlin.psi.KtFile
-import org.jetbrains.uast.UClass
-import org.jetbrains.uast.toUElement
+import motif.models.Scope
 
 class GraphFactory(private val project: Project) {
 
-  private val psiManager = PsiManager.getInstance(project)
   private val psiElementFactory = PsiElementFactory.SERVICE.getInstance(project)
 
-  fun compute(): ResolvedGraph {
+  fun compute(checkCanceled: () -> Unit = {}): ResolvedGraph {
     val scopeClasses: List<IrClass> = getScopeClasses()
-    return ResolvedGraph.create(scopeClasses)
+    return ResolvedGraph.create(scopeClasses, checkCanceled = checkCanceled)
   }
 
-  private fun getScopeClasses(): List<IrClass> {
-    val scopeClasses = mutableListOf<IrClass>()
-    ProjectFileIndex.SERVICE.getInstance(project).iterateContent { file ->
-      scopeClasses.addAll(getScopeClasses(file))
-      true
+  /**
+   * Resolves the graph again after the Scopes named [changedScopeNames] changed. The other Scopes
+   * of [previous] are reused unless their classes were invalidated, so only the changed Scopes are
+   * parsed again and only their ancestors are resolved again.
+   */
+  fun update(
+      previous: ResolvedGraph,
+      changedScopeNames: Set<String>,
+      checkCanceled: () -> Unit = {},
+  ): ResolvedGraph {
+    val scopeClasses: List<IrClass> = getScopeClasses()
+    return ResolvedGraph.update(previous, scopeClasses, checkCanceled = checkCanceled) { scope ->
+      scope.qualifiedName in changedScopeNames || !isValid(scope)
     }
-    return scopeClasses
   }
 
-  private fun getScopeClasses(virtualFile: VirtualFile): List<IrClass> {
-    val psiFile = psiManager.findFile(virtualFile) ?: return emptyList()
-    val psiClasses: Iterable<PsiClass> =
-        when (psiFile) {
-          is PsiJavaFile -> getScopeClasses(psiFile)
-          is KtFile -> getScopeClasses(psiFile)
-          else -> return emptyList()
-        }
-    return psiClasses
-        .flatMap(this::getClasses)
-        .filter(this::isScopeClass)
+  private fun isValid(scope: Scope): Boolean =
+      listOfNotNull(scope.clazz, scope.objects?.clazz, scope.dependencies?.clazz).all { clazz ->
+        (clazz as IntelliJClass).psiClass.isValid
+      }
+
+  /**
+   * Finds the project's Scopes through IntelliJ's annotation index, which covers Java and, through
+   * light classes, Kotlin. Only files that declare an annotation named `Scope` are parsed.
+   */
+  private fun getScopeClasses(): List<IrClass> {
+    val scopeAnnotationClass: PsiClass =
+        JavaPsiFacade.getInstance(project)
+            .findClass(motif.Scope::class.java.name, GlobalSearchScope.allScope(project))
+            ?: return emptyList()
+    return AnnotatedElementsSearch.searchPsiClasses(
+            scopeAnnotationClass,
+            GlobalSearchScope.projectScope(project),
+        )
+        .findAll()
+        .distinct()
         .map(psiElementFactory::createType)
         .map { type -> IntelliJClass(project, type, type.resolve()!!) }
   }
-
-  private fun getScopeClasses(psiFile: PsiJavaFile): Iterable<PsiClass> = psiFile.classes.toList()
-
-  private fun getScopeClasses(psiFile: KtFile): Iterable<PsiClass> =
-      psiFile.declarations.filterIsInstance<KtClass>().map {
-        it.toUElement(UClass::class.java)!!.javaPsi
-      }
-
-  private fun getClasses(psiClass: PsiClass): List<PsiClass> =
-      listOf(psiClass) + psiClass.innerClasses.flatMap(this::getClasses)
-
-  private fun isScopeClass(psiClass: PsiClass): Boolean =
-      psiClass.annotations.find { it.qualifiedName == Scope::class.qualifiedName } != null
 }
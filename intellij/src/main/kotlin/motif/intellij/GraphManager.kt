@@ -105,24 +105,31 @@ class GraphInvalidator(private val project: Project, private val graph: Resolved
 
   private val psiElementFactory = PsiElementFactory.SERVICE.getInstance(project)
 
-  private val relevantTypes: Set<IrType> by lazy {
-    graph.scopes
-        .flatMap { scope ->
-          (listOfNotNull(scope.objects?.clazz) +
-                  scope.clazz +
-                  spreadClasses(scope) +
-                  constructorClasses(scope))
-              .flatMap { clazz -> typeAndSupertypes((clazz as IntelliJClass).psiClass) }
-              .map { IntelliJType(project, psiElementFactory.createType(it)) }
-        }
-        .toSet()
-  }
+  private val scopesByRelevantType: Map<IrType, List<Scope>> =
+      graph.scopes
+          .flatMap { scope ->
+            relevantClasses(scope)
+                .flatMap { clazz -> typeAndSupertypes((clazz as IntelliJClass).psiClass) }
+                .map { IntelliJType(project, psiElementFactory.createType(it)) to scope }
+          }
+          .groupBy({ (type, _) -> type }, { (_, scope) -> scope })
 
   fun shouldInvalidate(changedElement: PsiElement): Boolean =
+      findChangedScopes(changedElement).isNotEmpty()
+
+  /** Returns the Scopes whose class, Objects, Dependencies, spreads or injected types changed. */
+  fun findChangedScopes(changedElement: PsiElement): Set<Scope> =
       (sequenceOf(changedElement) + changedElement.parentsWithSelf)
           .mapNotNull { it as? PsiClass }
-          .map { psiElementFactory.createType(it) }
-          .any { IntelliJType(project, it) in relevantTypes }
+          .map { IntelliJType(project, psiElementFactory.createType(it)) }
+          .flatMap { type -> scopesByRelevantType[type].orEmpty() }
+          .toSet()
+
+  private fun relevantClasses(scope: Scope): List<IrClass> =
+      listOfNotNull(scope.objects?.clazz, scope.dependencies?.clazz) +
+          scope.clazz +
+          spreadClasses(scope) +
+          constructorClasses(scope)
 
   private fun spreadClasses(scope: Scope): List<IrClass> =
       scope.factoryMethods.mapNotNull { it.spread }.map { spread -> spread.clazz }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.intellij
+
+import com.intellij.openapi.fileEditor.FileDocumentManager
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.project.getProjectCachePath
+import com.intellij.openapi.vfs.VirtualFileManager
+import java.io.DataInput
+import java.io.DataInputStream
+import java.io.DataOutput
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import motif.ast.intellij.IntelliJClass
+import motif.core.ResolvedGraph
+import motif.intellij.ScopeIndex.MethodSignature
+
+/**
+ * The Scopes and child Scopes of the last resolved graph, each with the modification stamp of the
+ * file that declares it. It is persisted in the project's system directory so that the gutter
+ * markers work right away when the project is reopened, before the graph is resolved again.
+ */
+class GraphSnapshot(val scopes: List<ScopeEntry>) {
+
+  class ScopeEntry(
+      val name: String,
+      val fileUrl: String,
+      val stamp: Long,
+      val children: Map<MethodSignature, List<String>>,
+  )
+
+  /**
+   * Returns an index of the Scopes whose files are unchanged according to [isUpToDate]. Stale
+   * Scopes are left out, together with their child methods.
+   */
+  fun toScopeIndex(isUpToDate: (fileUrl: String, stamp: Long) -> Boolean): ScopeIndex =
+      ScopeIndex.create(
+          scopes
+              .filter { isUpToDate(it.fileUrl, it.stamp) }
+              .associate { it.name to it.children },
+      )
+
+  fun write(output: DataOutput) {
+    output.writeInt(VERSION)
+    output.writeInt(scopes.size)
+    scopes.forEach { scope ->
+      output.writeUTF(scope.name)
+      output.writeUTF(scope.fileUrl)
+      output.writeLong(scope.stamp)
+      output.writeInt(scope.children.size)
+      scope.children.forEach { (signature, childNames) ->
+        output.writeUTF(signature.name)
+        output.writeStrings(signature.parameterTypes)
+        output.writeStrings(childNames)
+      }
+    }
+  }
+
+  fun save(project: Project) {
+    try {
+      val path = path(project)
+      Files.createDirectories(path.parent)
+      DataOutputStream(Files.newOutputStream(path).buffered()).use { write(it) }
+    } catch (e: IOException) {
+      // The snapshot only speeds up the next startup.
+    }
+  }
+
+  companion object {
+
+    private const val VERSION = 2
+
+    /** Takes a snapshot of [graph]. Must be called with read access. */
+    fun of(graph: ResolvedGraph): GraphSnapshot =
+        GraphSnapshot(
+            graph.scopes.mapNotNull { scope ->
+              val psiClass = (scope.clazz as IntelliJClass).psiClass
+              // Light classes of Kotlin Scopes are backed by the KtFile they were declared in.
+              val file = psiClass.navigationElement.containingFile?.virtualFile
+              file?.let {
+                ScopeEntry(
+                    scope.qualifiedName,
+                    it.url,
+                    it.timeStamp,
+                    ScopeIndex.getChildScopeNames(graph, scope),
+                )
+              }
+            },
+        )
+
+    /** Returns the snapshot written by [write], or null if it was written by another version. */
+    fun read(input: DataInput): GraphSnapshot? {
+      if (input.readInt() != VERSION) return null
+      return GraphSnapshot(
+          List(input.readInt()) {
+            ScopeEntry(
+                input.readUTF(),
+                input.readUTF(),
+                input.readLong(),
+                List(input.readInt()) {
+                      MethodSignature(input.readUTF(), input.readStrings()) to input.readStrings()
+                    }
+                    .toMap(),
+            )
+          },
+      )
+    }
+
+    fun load(project: Project): GraphSnapshot? =
+        try {
+          val path = path(project)
+          if (Files.exists(path)) {
+            DataInputStream(Files.newInputStream(path).buffered()).use { read(it) }
+          } else {
+            null
+          }
+        } catch (e: IOException) {
+          null
+        }
+
+    /**
+     * Returns whether the file at [fileUrl] still has the modification stamp [stamp] and has no
+     * unsaved changes.
+     */
+    fun isUpToDate(fileUrl: String, stamp: Long): Boolean {
+      val file = VirtualFileManager.getInstance().findFileByUrl(fileUrl) ?: return false
+      return file.timeStamp == stamp && !FileDocumentManager.getInstance().isFileModified(file)
+    }
+
+    private fun path(project: Project): Path =
+        project.getProjectCachePath("motif").resolve("graph.snapshot")
+
+    private fun DataOutput.writeStrings(strings: List<String>) {
+      writeInt(strings.size)
+      strings.forEach(::writeUTF)
+    }
+
+    private fun DataInput.readStrings(): List<String> = List(readInt()) { readUTF() }
+  }
+}
@@ -15,18 +15,19 @@
  */
 package motif.intellij
 
-import com.intellij.codeInsight.daemon.LineMarkerProviders
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer
 import com.intellij.ide.plugins.PluginManager
-import com.intellij.lang.Language
-import com.intellij.lang.java.JavaLanguage
 import com.intellij.openapi.Disposable
 import com.intellij.openapi.actionSystem.ActionManager
 import com.intellij.openapi.actionSystem.AnAction
 import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.ReadAction
 import com.intellij.openapi.components.Service
+import com.intellij.openapi.progress.ProcessCanceledException
 import com.intellij.openapi.progress.ProgressIndicator
 import com.intellij.openapi.progress.ProgressManager
 import com.intellij.openapi.progress.Task
+import com.intellij.openapi.progress.impl.BackgroundableProcessIndicator
 import com.intellij.openapi.project.DumbService
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.util.IconLoader
@@ -35,15 +36,21 @@ import com.intellij.openapi.wm.ToolWindowAnchor
 import com.intellij.openapi.wm.ToolWindowManager
 import com.intellij.psi.PsiClass
 import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiManager
 import com.intellij.ui.content.Content
 import com.intellij.ui.content.ContentFactory
+import com.intellij.util.Alarm
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
 import motif.core.ResolvedGraph
 import motif.intellij.analytics.AnalyticsService
 import motif.intellij.analytics.MotifAnalyticsActions
 import motif.intellij.ui.MotifErrorPanel
 import motif.intellij.ui.MotifScopePanel
 import motif.intellij.ui.MotifUsagePanel
-import org.jetbrains.kotlin.idea.KotlinLanguage
 
 @Service(Service.Level.PROJECT)
 class MotifService(val project: Project) : Disposable {
@@ -63,6 +70,9 @@ class MotifService(val project: Project) : Disposable {
         "Error computing Motif graph. If error persists after you rebuild your project and restart IDE, please make sure to report the issue."
 
     private val MOTIF_ACTION_IDS = listOf("motif_usage", "motif_graph", "motif_ancestor_graph")
+
+    // Delay before edits refresh the graph, so that typing triggers one refresh per pause.
+    private const val EDIT_REFRESH_DELAY_MILLIS: Int = 500
   }
 
   private val graphFactory: GraphFactory by lazy { GraphFactory(project) }
@@ -74,8 +84,29 @@ class MotifService(val project: Project) : Disposable {
   private var usageContent: Content? = null
   private var ancestorPanel: MotifScopePanel? = null
   private var ancestorContent: Content? = null
-  private var isRefreshing: Boolean = false
   private var pendingAction: (() -> Unit)? = null
+  private val refreshAlarm = Alarm(Alarm.ThreadToUse.SWING_THREAD, this)
+  private val refreshIndicator = AtomicReference<ProgressIndicator?>()
+  // Whether the user asked for a refresh that hasn't completed yet. Only such refreshes are logged.
+  private val userRefreshPending = AtomicBoolean()
+
+  // Last graph computed by a refresh, which the next refresh updates incrementally. Guarded by
+  // graphLock together with the changes that the graph doesn't reflect yet.
+  private val graphLock = Any()
+  @Volatile private var resolvedGraph: ResolvedGraph? = null
+  @Volatile private var graphInvalidator: GraphInvalidator? = null
+  // Qualified names of changed Scopes, each with the number of its latest change. Names stay valid
+  // across graphs, and a refresh only clears the changes it has seen.
+  private val changedScopeNames = ConcurrentHashMap<String, Long>()
+  private val changeCount = AtomicLong()
+
+  /**
+   * Index of the Scopes that line markers are shown for. Until the first refresh completes, it
+   * holds the Scopes of the previous session's [GraphSnapshot] whose files are unchanged.
+   */
+  @Volatile
+  var scopeIndex: ScopeIndex = ScopeIndex.EMPTY
+    private set
 
   fun attach() {
     DumbService.getInstance(project).runWhenSmart {
@@ -88,48 +119,135 @@ class MotifService(val project: Project) : Disposable {
             .getService(AnalyticsService::class.java)
             .logEvent(MotifAnalyticsActions.PROJECT_OPENED)
       }
+      ApplicationManager.getApplication().executeOnPooledThread(this::restoreSnapshot)
     }
+    PsiManager.getInstance(project)
+        .addPsiTreeChangeListener(ChildChangeListener(this::onPsiChanged), this)
   }
 
   override fun dispose() {}
 
+  /**
+   * Shows the Scopes of the previous session's snapshot in the gutter, then refreshes the graph in
+   * the background to reconcile the Scopes whose files changed since.
+   */
+  private fun restoreSnapshot() {
+    val snapshot: GraphSnapshot = GraphSnapshot.load(project) ?: return
+    val index: ScopeIndex =
+        ReadAction.compute<ScopeIndex, RuntimeException> {
+          snapshot.toScopeIndex(GraphSnapshot.Companion::isUpToDate)
+        }
+    synchronized(graphLock) {
+      // A refresh completed in the meantime.
+      if (resolvedGraph != null) return
+      setScopeIndex(index)
+    }
+    scheduleRefresh(0)
+  }
+
+  /** Replaces [scopeIndex] and recomputes the line markers if it changed. */
+  private fun setScopeIndex(index: ScopeIndex) {
+    if (index == scopeIndex) return
+    scopeIndex = index
+    DaemonCodeAnalyzer.getInstance(project).restart()
+  }
+
+  /**
+   * Refreshes the graph in the background. Refreshes requested in quick succession are merged, and
+   * a refresh that is still running is canceled when a newer one starts. The refresh counts as
+   * asked for by the user, so its result is logged.
+   */
   fun refreshGraph() {
-    if (isRefreshing) {
-      return
+    userRefreshPending.set(true)
+    scheduleRefresh(0)
+  }
+
+  private fun scheduleRefresh(delayMillis: Int) {
+    refreshAlarm.cancelAllRequests()
+    refreshAlarm.addRequest(this::startRefresh, delayMillis)
+  }
+
+  private fun startRefresh() {
+    val task =
+        object : Task.Backgroundable(project, LABEL_GRAPH_REFRESH, true) {
+          override fun run(indicator: ProgressIndicator) {
+            refresh(indicator)
+          }
+        }
+    val indicator = BackgroundableProcessIndicator(task)
+    refreshIndicator.getAndSet(indicator)?.cancel()
+    ProgressManager.getInstance().runProcessWithProgressAsynchronously(task, indicator)
+  }
+
+  private fun refresh(indicator: ProgressIndicator) {
+    try {
+      // A non-blocking read action yields to write actions and restarts afterwards, so the IDE
+      // stays responsive while the graph resolves.
+      val refresh: Refresh =
+          ReadAction.nonBlocking(Callable { computeRefresh(indicator) })
+              .inSmartMode(project)
+              .expireWith(this)
+              .wrapProgress(indicator)
+              .executeSynchronously()
+      synchronized(graphLock) {
+        // Leave the graph to a newer refresh if one started in the meantime.
+        indicator.checkCanceled()
+        refresh.changes.forEach { (name, change) -> changedScopeNames.remove(name, change) }
+        resolvedGraph = refresh.graph
+        graphInvalidator = refresh.invalidator
+        setScopeIndex(refresh.scopeIndex)
+      }
+      onGraphUpdated(refresh.graph)
+      refresh.snapshot.save(project)
+
+      if (userRefreshPending.getAndSet(false)) {
+        val eventName: String =
+            if (refresh.graph.errors.isNotEmpty()) {
+              MotifAnalyticsActions.GRAPH_UPDATE_ERROR
+            } else {
+              MotifAnalyticsActions.GRAPH_UPDATE_SUCCESS
+            }
+        project.getService(AnalyticsService::class.java).logEvent(eventName)
+      }
+    } catch (e: ProcessCanceledException) {
+      // Superseded by a newer refresh or the project was closed.
+      throw e
+    } catch (t: Throwable) {
+      synchronized(graphLock) {
+        resolvedGraph = null
+        graphInvalidator = null
+        setScopeIndex(ScopeIndex.EMPTY)
+      }
+      val emptyGraph: ResolvedGraph = ResolvedGraph.create(emptyList())
+      onGraphUpdated(emptyGraph)
+
+      if (userRefreshPending.getAndSet(false)) {
+        project
+            .getService(AnalyticsService::class.java)
+            .logEvent(MotifAnalyticsActions.GRAPH_COMPUTATION_ERROR)
+      }
+      PluginManager.getLogger().error(LABEL_GRAPH_COMPUTATION_ERROR, t)
+    } finally {
+      refreshIndicator.compareAndSet(indicator, null)
     }
-    isRefreshing = true
-
-    ProgressManager.getInstance()
-        .run(
-            object : Task.Backgroundable(project, LABEL_GRAPH_REFRESH) {
-              override fun run(indicator: ProgressIndicator) {
-                ApplicationManager.getApplication().runReadAction {
-                  try {
-                    val updatedGraph: ResolvedGraph = graphFactory.compute()
-                    onGraphUpdated(updatedGraph)
-
-                    val eventName: String =
-                        if (updatedGraph.errors.isNotEmpty()) {
-                          MotifAnalyticsActions.GRAPH_UPDATE_ERROR
-                        } else {
-                          MotifAnalyticsActions.GRAPH_UPDATE_SUCCESS
-                        }
-                    project.getService(AnalyticsService::class.java).logEvent(eventName)
-                  } catch (t: Throwable) {
-                    val emptyGraph: ResolvedGraph = ResolvedGraph.create(emptyList())
-                    onGraphUpdated(emptyGraph)
-
-                    project
-                        .getService(AnalyticsService::class.java)
-                        .logEvent(MotifAnalyticsActions.GRAPH_COMPUTATION_ERROR)
-                    PluginManager.getLogger().error(LABEL_GRAPH_COMPUTATION_ERROR, t)
-                  } finally {
-                    isRefreshing = false
-                  }
-                }
-              }
-            },
-        )
+  }
+
+  private fun computeRefresh(indicator: ProgressIndicator): Refresh {
+    val (previousGraph: ResolvedGraph?, changes: Map<String, Long>) =
+        synchronized(graphLock) { resolvedGraph to HashMap(changedScopeNames) }
+    val graph: ResolvedGraph =
+        if (previousGraph == null) {
+          graphFactory.compute(indicator::checkCanceled)
+        } else {
+          graphFactory.update(previousGraph, changes.keys, indicator::checkCanceled)
+        }
+    return Refresh(
+        graph,
+        GraphInvalidator(project, graph),
+        ScopeIndex.of(graph),
+        GraphSnapshot.of(graph),
+        changes,
+    )
   }
 
   fun refreshGraph(action: () -> Unit) {
@@ -137,6 +255,18 @@ class MotifService(val project: Project) : Disposable {
     refreshGraph()
   }
 
+  /** Records which Scopes of the last computed graph [element] belongs to and refreshes them. */
+  private fun onPsiChanged(element: PsiElement) {
+    val invalidator = graphInvalidator ?: return
+    val scopes = invalidator.findChangedScopes(element)
+    if (scopes.isNotEmpty()) {
+      scopes.forEach { scope ->
+        changedScopeNames[scope.qualifiedName] = changeCount.incrementAndGet()
+      }
+      scheduleRefresh(EDIT_REFRESH_DELAY_MILLIS)
+    }
+  }
+
   fun onSelectedClass(element: PsiElement) {
     if (element !is PsiClass) {
       return
@@ -191,16 +321,6 @@ class MotifService(val project: Project) : Disposable {
       // display # of errors in tab label
       errorContent?.displayName = TAB_NAME_ERRORS + " (" + graph.errors.size + ")"
 
-      // Propagate changes to line markers provider
-      val languages: List<Language> = listOf(JavaLanguage.INSTANCE, KotlinLanguage.INSTANCE)
-      languages.forEach {
-        for (lineMarkerProvider in LineMarkerProviders.getInstance().allForLanguage(it)) {
-          if (lineMarkerProvider is Listener) {
-            lineMarkerProvider.onGraphUpdated(graph)
-          }
-        }
-      }
-
       // Propagate changes to actions
       MOTIF_ACTION_IDS.forEach {
         val usageAction: AnAction = ActionManager.getInstance().getAction(it)
@@ -254,4 +374,12 @@ class MotifService(val project: Project) : Disposable {
 
     fun onGraphUpdated(graph: ResolvedGraph)
   }
+  private class Refresh(
+      val graph: ResolvedGraph,
+      val invalidator: GraphInvalidator,
+      val scopeIndex: ScopeIndex,
+      val snapshot: GraphSnapshot,
+      // Changes the graph reflects, by Scope name and change number.
+      val changes: Map<String, Long>,
+  )
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.intellij
+
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiMethod
+import com.intellij.psi.util.TypeConversionUtil
+import motif.ast.intellij.IntelliJMethod
+import motif.core.ResolvedGraph
+import motif.models.Scope
+
+/**
+ * Immutable lookup of Scopes and their child Scopes by qualified name. Line marker providers run
+ * for every element of an open file, so they use this instead of resolving types against the graph
+ * on each call. It only holds names, so it can also be restored from a [GraphSnapshot] before the
+ * first graph is resolved.
+ */
+class ScopeIndex
+private constructor(
+    private val parentScopeNames: Map<String, List<String>>,
+    private val childScopeNames: Map<String, Map<MethodSignature, List<String>>>,
+) {
+
+  /** Returns the names of the given class' parent Scopes, or null if it isn't a Scope. */
+  fun getParentScopeNames(psiClass: PsiClass): List<String>? =
+      psiClass.qualifiedName?.let { parentScopeNames[it] }
+
+  /**
+   * Returns the names of the Scopes created by the given child method, matched by name and erased
+   * parameter types so that overloads resolve to their own child Scopes.
+   */
+  fun getChildScopeNames(method: PsiMethod): List<String> {
+    val scopeName = method.containingClass?.qualifiedName ?: return emptyList()
+    return childScopeNames[scopeName]?.get(MethodSignature.of(method)) ?: emptyList()
+  }
+
+  override fun equals(other: Any?): Boolean =
+      other is ScopeIndex &&
+          parentScopeNames == other.parentScopeNames &&
+          childScopeNames == other.childScopeNames
+
+  override fun hashCode(): Int = 31 * parentScopeNames.hashCode() + childScopeNames.hashCode()
+
+  /** Name and erased parameter types of a child method. */
+  data class MethodSignature(val name: String, val parameterTypes: List<String>) {
+
+    companion object {
+      fun of(method: PsiMethod): MethodSignature =
+          MethodSignature(
+              method.name,
+              method.parameterList.parameters.map {
+                TypeConversionUtil.erasure(it.type).canonicalText
+              },
+          )
+    }
+  }
+
+  companion object {
+
+    val EMPTY = create(emptyMap())
+
+    fun of(graph: ResolvedGraph): ScopeIndex =
+        create(graph.scopes.associate { it.qualifiedName to getChildScopeNames(graph, it) })
+
+    /** Returns the names of the Scopes created by [scope]'s child methods, by method signature. */
+    fun getChildScopeNames(graph: ResolvedGraph, scope: Scope): Map<MethodSignature, List<String>> =
+        graph.getChildEdges(scope).groupBy(
+            { MethodSignature.of((it.method.method as IntelliJMethod).psiMethod) },
+            { it.child.qualifiedName },
+        )
+
+    /**
+     * Creates an index of the Scopes that are keys of [childScopeNames], each mapped to the names
+     * of the Scopes its child methods create. Parents are only known for the Scopes that are keys.
+     */
+    fun create(childScopeNames: Map<String, Map<MethodSignature, List<String>>>): ScopeIndex {
+      val parentScopeNames: Map<String, MutableSet<String>> =
+          childScopeNames.keys.associateWith { LinkedHashSet() }
+      childScopeNames.forEach { (scopeName, children) ->
+        children.values.flatten().forEach { childName ->
+          parentScopeNames[childName]?.add(scopeName)
+        }
+      }
+      return ScopeIndex(parentScopeNames.mapValues { it.value.toList() }, childScopeNames)
+    }
+  }
+}
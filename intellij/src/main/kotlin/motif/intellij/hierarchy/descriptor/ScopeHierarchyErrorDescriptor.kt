@@ -35,6 +35,7 @@ import motif.models.AccessMethodParameters
 import motif.models.DependencyMethodWithParameters
 import motif.models.DuplicatedChildParameterSource
 import motif.models.InjectAnnotationRequired
+import motif.models.InvalidDeferredParameter
 import motif.models.InvalidFactoryMethod
 import motif.models.InvalidQualifier
 import motif.models.MotifError
@@ -94,6 +95,9 @@ open class ScopeHierarchyErrorDescriptor(
           is NullableParameter -> {
             (error.parameter as IntelliJMethodParameter).psiParameter
           }
+          is InvalidDeferredParameter -> {
+            (error.parameter as IntelliJMethodParameter).psiParameter
+          }
           is NullableDynamicDependency -> {
             (error.parameter as IntelliJMethodParameter).psiParameter
           }
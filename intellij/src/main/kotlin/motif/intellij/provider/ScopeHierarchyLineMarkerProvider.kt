@@ -31,38 +31,27 @@ import com.intellij.psi.PsiMethod
 import com.intellij.psi.impl.source.PsiClassReferenceType
 import com.intellij.util.ConstantFunction
 import java.awt.event.MouseEvent
-import motif.core.ResolvedGraph
 import motif.intellij.MotifService
 import motif.intellij.MotifService.Companion.TOOL_WINDOW_ID
-import motif.intellij.ScopeHierarchyUtils.getParentScopes
-import motif.intellij.ScopeHierarchyUtils.isMotifScopeClass
+import motif.intellij.ScopeIndex
 import motif.intellij.analytics.AnalyticsService
 import motif.intellij.analytics.MotifAnalyticsActions
 
 /*
  * {@LineMarkerProvider} used to display icon in gutter to navigate to motif scope ancestors hierarchy.
  */
-class ScopeHierarchyLineMarkerProvider : LineMarkerProvider, MotifService.Listener {
+class ScopeHierarchyLineMarkerProvider : LineMarkerProvider {
 
   companion object {
     const val LABEL_ANCESTORS_SCOPE: String = "View Scope Ancestors."
   }
 
-  private var graph: ResolvedGraph? = null
-
-  override fun onGraphUpdated(graph: ResolvedGraph) {
-    this.graph = graph
-  }
-
   override fun getLineMarkerInfo(element: PsiElement): LineMarkerInfo<PsiElement>? {
-    val graph: ResolvedGraph = graph ?: return null
     if (element !is PsiClass) {
       return null
     }
-    if (!isMotifScopeClass(element)) {
-      return null
-    }
-    if (getParentScopes(element.project, graph, element)?.isNotEmpty() != true) {
+    val index: ScopeIndex = element.project.getService(MotifService::class.java).scopeIndex
+    if (index.getParentScopeNames(element)?.isNotEmpty() != true) {
       return null
     }
     val identifier: PsiIdentifier = element.nameIdentifier ?: return null
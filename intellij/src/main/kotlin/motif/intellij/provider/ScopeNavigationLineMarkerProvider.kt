@@ -28,22 +28,17 @@ import com.intellij.openapi.ui.popup.ListPopup
 import com.intellij.openapi.ui.popup.PopupStep
 import com.intellij.openapi.ui.popup.util.BaseListPopupStep
 import com.intellij.pom.Navigatable
+import com.intellij.psi.JavaPsiFacade
 import com.intellij.psi.PsiClass
 import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiIdentifier
 import com.intellij.psi.PsiMethod
-import com.intellij.psi.impl.source.PsiClassReferenceType
-import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.psi.search.GlobalSearchScope
 import com.intellij.ui.awt.RelativePoint
 import com.intellij.util.ConstantFunction
 import java.awt.event.MouseEvent
-import motif.ast.intellij.IntelliJClass
-import motif.core.ResolvedGraph
-import motif.core.ScopeEdge
 import motif.intellij.MotifService
-import motif.intellij.ScopeHierarchyUtils.getParentScopes
-import motif.intellij.ScopeHierarchyUtils.isMotifChildScopeMethod
-import motif.intellij.ScopeHierarchyUtils.isMotifScopeClass
+import motif.intellij.ScopeIndex
 import motif.intellij.analytics.AnalyticsService
 import motif.intellij.analytics.MotifAnalyticsActions
 import motif.intellij.toPsiClass
@@ -52,7 +47,7 @@ import motif.intellij.toPsiMethod
 /*
  * {@LineMarkerProvider} used to display navigation icons in gutter to navigate to parent/children of Motif scopes.
  */
-class ScopeNavigationLineMarkerProvider : LineMarkerProvider, MotifService.Listener {
+class ScopeNavigationLineMarkerProvider : LineMarkerProvider {
 
   companion object {
     const val LABEL_NAVIGATE_PARENT_SCOPE: String = "Navigate to parent Scope."
@@ -64,18 +59,12 @@ class ScopeNavigationLineMarkerProvider : LineMarkerProvider, MotifService.Liste
     const val MESSAGE_TITLE: String = "Motif"
   }
 
-  private var graph: ResolvedGraph? = null
-
-  override fun onGraphUpdated(graph: ResolvedGraph) {
-    this.graph = graph
-  }
-
   override fun getLineMarkerInfo(element: PsiElement): LineMarkerInfo<PsiElement>? {
-    val graph: ResolvedGraph = graph ?: return null
+    val index: ScopeIndex = element.project.getService(MotifService::class.java).scopeIndex
     val psiClassElement = element.toPsiClass()
-    if (psiClassElement is PsiClass && isMotifScopeClass(psiClassElement)) {
-      val scopeEdges: Array<ScopeEdge>? = getParentScopes(element.project, graph, psiClassElement)
-      if (scopeEdges?.isNotEmpty() == true) {
+    if (psiClassElement is PsiClass) {
+      val parentScopeNames: List<String>? = index.getParentScopeNames(psiClassElement)
+      if (parentScopeNames?.isNotEmpty() == true) {
         val identifier: PsiIdentifier = psiClassElement.nameIdentifier ?: return null
         return LineMarkerInfo(
             element,
@@ -83,20 +72,20 @@ class ScopeNavigationLineMarkerProvider : LineMarkerProvider, MotifService.Liste
             AllIcons.Actions.PreviousOccurence,
             UPDATE_ALL,
             ConstantFunction<PsiElement, String>(LABEL_NAVIGATE_PARENT_SCOPE),
-            NavigationScopeHandler(element.project, graph),
+            NavigationScopeHandler(element.project, index),
             LEFT,
         )
       }
     } else {
       val methodElement = element.toPsiMethod()
-      if (isMotifChildScopeMethod(methodElement)) {
+      if (methodElement is PsiMethod && index.getChildScopeNames(methodElement).isNotEmpty()) {
         return LineMarkerInfo(
             element,
             element.textRange,
             AllIcons.Actions.NextOccurence,
             UPDATE_ALL,
             ConstantFunction<PsiElement, String>(LABEL_NAVIGATE_CHILD_SCOPE),
-            NavigationScopeHandler(element.project, graph),
+            NavigationScopeHandler(element.project, index),
             LEFT,
         )
       }
@@ -104,38 +93,37 @@ class ScopeNavigationLineMarkerProvider : LineMarkerProvider, MotifService.Liste
     return null
   }
 
-  private class NavigationScopeHandler(val project: Project, val graph: ResolvedGraph) :
+  private class NavigationScopeHandler(val project: Project, val index: ScopeIndex) :
       GutterIconNavigationHandler<PsiElement> {
     override fun navigate(event: MouseEvent?, element: PsiElement?) {
       val psiClassElement = element?.toPsiClass()
       if (psiClassElement is PsiClass) {
-        val scopeEdges: Array<ScopeEdge>? =
-            getParentScopes(psiClassElement.project, graph, psiClassElement)
-        if (scopeEdges == null) {
+        val parentScopeNames: List<String>? = index.getParentScopeNames(psiClassElement)
+        if (parentScopeNames == null) {
           Messages.showInfoMessage(MESSAGE_NAVIGATION_NO_SCOPE, MESSAGE_TITLE)
           return
         }
-        when (scopeEdges.size) {
+        when (parentScopeNames.size) {
           0 -> Messages.showInfoMessage(MESSAGE_NAVIGATION_PARENT_ROOT, MESSAGE_TITLE)
-          1 -> navigateToParent(scopeEdges[0])
+          1 -> navigateTo(parentScopeNames[0])
           else -> {
             val mouseEvent: MouseEvent = event ?: return
             val listPopup: ListPopup =
                 JBPopupFactory.getInstance()
                     .createListPopup(
                         object :
-                            BaseListPopupStep<ScopeEdge>(
+                            BaseListPopupStep<String>(
                                 "Select Parent Scope",
-                                scopeEdges.toMutableList(),
+                                parentScopeNames.toMutableList(),
                             ) {
-                          override fun getTextFor(value: ScopeEdge): String =
-                              value.parent.clazz.simpleName
+                          override fun getTextFor(value: String): String =
+                              value.substringAfterLast('.')
 
                           override fun onChosen(
-                              selectedValue: ScopeEdge?,
+                              selectedValue: String?,
                               finalChoice: Boolean,
                           ): PopupStep<*>? {
-                            selectedValue?.let { navigateToParent(it) }
+                            selectedValue?.let { navigateTo(it) }
                             return super.onChosen(selectedValue, finalChoice)
                           }
                         },
@@ -146,19 +134,7 @@ class ScopeNavigationLineMarkerProvider : LineMarkerProvider, MotifService.Liste
       } else {
         val methodElement = element?.toPsiMethod()
         if (methodElement is PsiMethod) {
-          val classElement = PsiTreeUtil.getParentOfType(methodElement, PsiClass::class.java)
-          if (isMotifScopeClass(classElement) &&
-              methodElement.returnType is PsiClassReferenceType) {
-            val returnElementClass: PsiClass? =
-                (methodElement.returnType as PsiClassReferenceType).resolve()
-            returnElementClass?.let {
-              val navigationElement = it.navigationElement
-              if (navigationElement is Navigatable &&
-                  (navigationElement as Navigatable).canNavigate()) {
-                navigationElement.navigate(true)
-              }
-            }
-          }
+          index.getChildScopeNames(methodElement).firstOrNull()?.let { navigateTo(it) }
         }
       }
       project
@@ -166,9 +142,11 @@ class ScopeNavigationLineMarkerProvider : LineMarkerProvider, MotifService.Liste
           .logEvent(MotifAnalyticsActions.NAVIGATION_GUTTER_CLICK)
     }
 
-    private fun navigateToParent(scopeEdge: ScopeEdge) {
-      val navigationElement: PsiElement =
-          (scopeEdge.parent.clazz as IntelliJClass).psiClass.navigationElement
+    private fun navigateTo(scopeName: String) {
+      val searchScope = GlobalSearchScope.allScope(project)
+      val psiClass: PsiClass =
+          JavaPsiFacade.getInstance(project).findClass(scopeName, searchScope) ?: return
+      val navigationElement: PsiElement = psiClass.navigationElement
       if (navigationElement is Navigatable && (navigationElement as Navigatable).canNavigate()) {
         navigationElement.navigate(true)
       }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.intellij
+
+import com.google.common.truth.Truth.assertThat
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.fileEditor.FileDocumentManager
+import com.intellij.openapi.projectRoots.impl.JavaAwareProjectJdkTableImpl
+import com.intellij.psi.PsiClass
+import com.intellij.testFramework.PsiTestUtil
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import motif.Scope
+import motif.core.ResolvedGraph
+
+class GraphSnapshotTest : LightJavaCodeInsightFixtureTestCase() {
+
+  private lateinit var parent: PsiClass
+  private lateinit var child: PsiClass
+  private lateinit var graph: ResolvedGraph
+
+  override fun getProjectDescriptor() = DefaultLightProjectDescriptor {
+    JavaAwareProjectJdkTableImpl.getInstanceEx().internalJdk
+  }
+
+  public override fun setUp() {
+    super.setUp()
+    val file = File(Scope::class.java.protectionDomain.codeSource.location.toURI())
+    PsiTestUtil.addLibrary(myFixture.projectDisposable, module, file.name, file.parent, file.name)
+    child = myFixture.addClass("package test; @motif.Scope public interface Child {}")
+    parent =
+        myFixture.addClass(
+            """
+            package test;
+
+            @motif.Scope
+            public interface Parent {
+                Child child();
+
+                Child child(String s);
+            }
+            """
+                .trimIndent(),
+        )
+    graph = GraphFactory(project).compute()
+  }
+
+  fun testRoundTrip() {
+    val snapshot = GraphSnapshot.of(graph)
+    val restored = read(write(snapshot))!!
+
+    assertThat(restored.scopes.map { it.name })
+        .containsExactlyElementsIn(snapshot.scopes.map { it.name })
+        .inOrder()
+    assertThat(restored.scopes.map { it.fileUrl })
+        .containsExactlyElementsIn(snapshot.scopes.map { it.fileUrl })
+        .inOrder()
+    assertThat(restored.scopes.map { it.stamp })
+        .containsExactlyElementsIn(snapshot.scopes.map { it.stamp })
+        .inOrder()
+    assertThat(restored.toScopeIndex { _, _ -> true }).isEqualTo(ScopeIndex.of(graph))
+  }
+
+  fun testRestoredIndexNavigates() {
+    val index = read(write(GraphSnapshot.of(graph)))!!.toScopeIndex { _, _ -> true }
+
+    assertThat(index.getParentScopeNames(child)).containsExactly("test.Parent")
+    assertThat(index.getParentScopeNames(parent)).isEmpty()
+    parent.findMethodsByName("child", false).forEach { method ->
+      assertThat(index.getChildScopeNames(method)).containsExactly("test.Child")
+    }
+  }
+
+  fun testStaleScopesAreDropped() {
+    val parentUrl = parent.containingFile.virtualFile.url
+    val index = GraphSnapshot.of(graph).toScopeIndex { fileUrl, _ -> fileUrl != parentUrl }
+
+    assertThat(index.getParentScopeNames(parent)).isNull()
+    assertThat(index.getParentScopeNames(child)).isEmpty()
+    parent.findMethodsByName("child", false).forEach { method ->
+      assertThat(index.getChildScopeNames(method)).isEmpty()
+    }
+  }
+
+  fun testIsUpToDate() {
+    val entry = GraphSnapshot.of(graph).scopes.single { it.name == "test.Child" }
+    assertThat(GraphSnapshot.isUpToDate(entry.fileUrl, entry.stamp)).isTrue()
+    assertThat(GraphSnapshot.isUpToDate(entry.fileUrl, entry.stamp + 1)).isFalse()
+    assertThat(GraphSnapshot.isUpToDate("temp:///src/test/Missing.java", entry.stamp)).isFalse()
+
+    val document = FileDocumentManager.getInstance().getDocument(child.containingFile.virtualFile)!!
+    WriteCommandAction.runWriteCommandAction(project) { document.insertString(0, " ") }
+    assertThat(GraphSnapshot.isUpToDate(entry.fileUrl, entry.stamp)).isFalse()
+  }
+
+  fun testReadRejectsOtherVersion() {
+    val bytes = ByteArrayOutputStream()
+    DataOutputStream(bytes).use { it.writeInt(-1) }
+
+    assertThat(read(bytes.toByteArray())).isNull()
+  }
+
+  private fun write(snapshot: GraphSnapshot): ByteArray {
+    val bytes = ByteArrayOutputStream()
+    DataOutputStream(bytes).use(snapshot::write)
+    return bytes.toByteArray()
+  }
+
+  private fun read(bytes: ByteArray): GraphSnapshot? =
+      DataInputStream(ByteArrayInputStream(bytes)).use(GraphSnapshot.Companion::read)
+}
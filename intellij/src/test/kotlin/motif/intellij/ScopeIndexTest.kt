@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.intellij
+
+import com.google.common.truth.Truth.assertThat
+import com.intellij.openapi.projectRoots.impl.JavaAwareProjectJdkTableImpl
+import com.intellij.psi.PsiClass
+import com.intellij.psi.PsiMethod
+import com.intellij.testFramework.PsiTestUtil
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase
+import java.io.File
+import motif.Scope
+
+class ScopeIndexTest : LightJavaCodeInsightFixtureTestCase() {
+
+  override fun getProjectDescriptor() = DefaultLightProjectDescriptor {
+    JavaAwareProjectJdkTableImpl.getInstanceEx().internalJdk
+  }
+
+  public override fun setUp() {
+    super.setUp()
+    val file = File(Scope::class.java.protectionDomain.codeSource.location.toURI())
+    PsiTestUtil.addLibrary(myFixture.projectDisposable, module, file.name, file.parent, file.name)
+  }
+
+  fun testOverloadedChildMethodsMatchTheirOwnChild() {
+    myFixture.addClass("package test; @motif.Scope public interface ChildA {}")
+    myFixture.addClass("package test; @motif.Scope public interface ChildB {}")
+    val parent =
+        myFixture.addClass(
+            """
+            package test;
+
+            @motif.Scope
+            public interface Parent {
+                ChildA child(String s);
+                ChildB child(java.util.List<String> l);
+            }
+            """
+                .trimIndent(),
+        )
+    val index = ScopeIndex.of(GraphFactory(project).compute())
+
+    assertThat(index.getChildScopeNames(method(parent, "java.lang.String")))
+        .containsExactly("test.ChildA")
+    assertThat(index.getChildScopeNames(method(parent, "java.util.List<java.lang.String>")))
+        .containsExactly("test.ChildB")
+  }
+
+  fun testAccessMethodOverloadHasNoChildScopes() {
+    myFixture.addClass("package test; @motif.Scope public interface Child {}")
+    val parent =
+        myFixture.addClass(
+            """
+            package test;
+
+            @motif.Scope
+            public interface Parent {
+                String child();
+
+                Child child(String s);
+            }
+            """
+                .trimIndent(),
+        )
+    val index = ScopeIndex.of(GraphFactory(project).compute())
+
+    assertThat(index.getChildScopeNames(method(parent))).isEmpty()
+    assertThat(index.getChildScopeNames(method(parent, "java.lang.String")))
+        .containsExactly("test.Child")
+  }
+
+  fun testParentScopeNames() {
+    val child: PsiClass = myFixture.addClass("package test; @motif.Scope public interface Child {}")
+    val parent: PsiClass =
+        myFixture.addClass(
+            "package test; @motif.Scope public interface Parent { Child child(); }",
+        )
+    val other: PsiClass = myFixture.addClass("package test; public interface Other {}")
+    val index = ScopeIndex.of(GraphFactory(project).compute())
+
+    assertThat(index.getParentScopeNames(child)).containsExactly("test.Parent")
+    assertThat(index.getParentScopeNames(parent)).isEmpty()
+    assertThat(index.getParentScopeNames(other)).isNull()
+  }
+
+  private fun method(psiClass: PsiClass, vararg parameterTypes: String): PsiMethod =
+      psiClass.findMethodsByName("child", false).single { method ->
+        method.parameterList.parameters.map { it.type.canonicalText } == parameterTypes.toList()
+      }
+}
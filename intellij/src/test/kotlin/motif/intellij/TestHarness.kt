@@ -77,7 +77,8 @@ class TestHarness : LightJavaCodeInsightFixtureTestCase() {
                 myFixture.addFileToProject(sourceFile.name, sourceFile.readText())
           }
         }
-    val graph = GraphFactory(project).compute()
+    val graphFactory = GraphFactory(project)
+    val graph = graphFactory.compute()
 
     val errorFile = testDir.resolve("ERROR.txt")
     if (errorFile.exists()) {
@@ -94,6 +95,9 @@ class TestHarness : LightJavaCodeInsightFixtureTestCase() {
       val expectedGraphText = graphFile.readText()
       val actualGraphText = getActualGraphString(graph)
       assertThat(actualGraphText).isEqualTo(expectedGraphText)
+
+      val updatedGraph = graphFactory.update(graph, graph.roots.map { it.qualifiedName }.toSet())
+      assertThat(getActualGraphString(updatedGraph)).isEqualTo(expectedGraphText)
     }
   }
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif;
+
+/** Determines how a generated ScopeImpl guards the initialization of cached factory methods. */
+public enum CacheSynchronization {
+
+  /**
+   * Double-checked locking on the ScopeImpl itself. All cached factory methods of the Scope share a
+   * single monitor, except the ones created by {@code warmUp}, which get a dedicated lock as with
+   * {@link #FIELD} so that {@link Eager} objects can be created in parallel.
+   */
+  SCOPE,
+
+  /**
+   * Double-checked locking on a dedicated lock per cached factory method. Creating one object never
+   * blocks the creation of an unrelated object in the same Scope.
+   */
+  FIELD,
+
+  /**
+   * Lock-free compare-and-set publication. Under contention the factory method may be invoked more
+   * than once, but every caller observes the same instance.
+   */
+  ATOMIC,
+
+  /**
+   * No synchronization. The Scope is only ever created and accessed from a single thread, so cached
+   * factory methods are generated as plain fields without volatile reads or locks. Compile with
+   * -Amotif.threadConfinedAssertions=true to additionally verify at runtime that the Scope is only
+   * accessed from the thread that created it. {@link Eager} is ignored for these Scopes.
+   */
+  THREAD_CONFINED,
+}
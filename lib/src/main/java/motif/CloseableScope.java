@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif;
+
+/**
+ * Scopes that extend this interface get a generated {@link #close()} implementation which releases
+ * all cached objects of the Scope.
+ */
+public interface CloseableScope {
+
+  /**
+   * Releases all cached objects, disposing the ones that implement {@link Disposable} in reverse
+   * dependency order. Objects can no longer be retrieved from the Scope after it is closed. Calling
+   * this method more than once has no effect.
+   */
+  void close();
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif;
+
+/**
+ * Marks a {@code javax.inject.Provider<Foo>} factory method or constructor parameter as a deferred
+ * dependency on {@code Foo}. The generated Provider retrieves {@code Foo} on every call to {@code
+ * get()}. Without this annotation the parameter is a regular dependency on {@code Provider<Foo>}.
+ * {@link Lazy} parameters are always deferred.
+ */
+public @interface Deferred {}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif;
+
+/**
+ * Marks a cached factory method, or every cached factory method of a Scope, to be created by the
+ * generated {@code warmUp(Executor)} method of the ScopeImpl.
+ *
+ * <p>Scopes using {@link CacheSynchronization#THREAD_CONFINED} never get a {@code warmUp} method,
+ * since it would create objects on other threads.
+ */
+public @interface Eager {}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif;
+
+/**
+ * A handle to an object that is created on the first call to {@link #get()} and returned on every
+ * subsequent call. Factory method parameters of type {@code Lazy<Foo>} are satisfied by the
+ * {@code Foo} dependency without creating it up front.
+ */
+public interface Lazy<T> {
+
+  T get();
+}
@@ -21,4 +21,7 @@ public @interface Scope {
    *     [Initialized.INITIALIZED] will be used to skip the field initialization.
    */
   boolean useNullFieldInitialization() default false;
+
+  /** @return the strategy used to guard the initialization of cached factory methods. */
+  CacheSynchronization cacheSynchronization() default CacheSynchronization.SCOPE;
 }
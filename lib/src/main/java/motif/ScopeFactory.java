@@ -18,8 +18,14 @@ package motif;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import motif.internal.Constants;
+import motif.internal.ScopeRegistry;
 
 public class ScopeFactory {
 
@@ -27,37 +33,72 @@ public class ScopeFactory {
 
   private static final NoDependencies NO_DEPENDENCIES = new NoDependencies() {};
 
-  private static final Map<Class<?>, Constructor<?>> scopeClassToCreateMethod = new HashMap<>();
+  private static final ConcurrentMap<ClassLoader, Map<Class<?>, ScopeRegistry.Factory>>
+      classLoaderToFactories = new ConcurrentHashMap<>();
+
+  private static final ConcurrentMap<Class<?>, ScopeRegistry.Factory>
+      scopeClassToReflectiveFactory = new ConcurrentHashMap<>();
 
   public static <S extends Creatable<NoDependencies>> S create(Class<S> scopeClass) {
     return create(scopeClass, NO_DEPENDENCIES);
   }
 
   public static <S extends Creatable<D>, D> S create(Class<S> scopeClass, D dependencies) {
-    Constructor<?> constructor = getConstructor(scopeClass);
-    try {
-      if (constructor.getParameterTypes().length == 0) {
-        return (S) constructor.newInstance();
-      } else {
-        return (S) constructor.newInstance(dependencies);
+    ScopeRegistry.Factory factory = getFactories(scopeClass).get(scopeClass);
+    if (factory == null) {
+      factory = getReflectiveFactory(scopeClass);
+    }
+    return (S) factory.create(dependencies);
+  }
+
+  private static Map<Class<?>, ScopeRegistry.Factory> getFactories(Class<?> scopeClass) {
+    ClassLoader classLoader = scopeClass.getClassLoader();
+    if (classLoader == null || classLoader == ScopeRegistry.class.getClassLoader()) {
+      return DefaultFactories.FACTORIES;
+    }
+    // Scopes loaded by another class loader, such as a plugin's, may see other registries.
+    Map<Class<?>, ScopeRegistry.Factory> factories = classLoaderToFactories.get(classLoader);
+    if (factories == null) {
+      factories = loadFactories(ServiceLoader.load(ScopeRegistry.class, classLoader).iterator());
+      Map<Class<?>, ScopeRegistry.Factory> existing =
+          classLoaderToFactories.putIfAbsent(classLoader, factories);
+      if (existing != null) {
+        factories = existing;
       }
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
-    } catch (InvocationTargetException e) {
-      throw new RuntimeException(e);
-    } catch (InstantiationException e) {
-      throw new RuntimeException(e);
     }
+    return factories;
   }
 
-  private static synchronized Constructor<?> getConstructor(Class<?> scopeClass) {
-    Constructor<?> constructor = scopeClassToCreateMethod.get(scopeClass);
-    if (constructor == null) {
+  private static Map<Class<?>, ScopeRegistry.Factory> loadFactories(
+      Iterator<ScopeRegistry> registries) {
+    Map<Class<?>, ScopeRegistry.Factory> factories = new HashMap<>();
+    while (true) {
+      ScopeRegistry registry;
+      try {
+        if (!registries.hasNext()) break;
+        registry = registries.next();
+      } catch (ServiceConfigurationError e) {
+        // This registry was stripped or renamed by the shrinker. The iterator has already moved
+        // past it, so the remaining registries still load and its Scopes fall back to reflection.
+        continue;
+      }
+      registry.registerAll(factories);
+    }
+    return factories;
+  }
+
+  private static ScopeRegistry.Factory getReflectiveFactory(Class<?> scopeClass) {
+    ScopeRegistry.Factory factory = scopeClassToReflectiveFactory.get(scopeClass);
+    if (factory == null) {
       Class<?> scopeImplClass = getScopeImplClass(scopeClass);
-      constructor = scopeImplClass.getDeclaredConstructors()[0];
-      scopeClassToCreateMethod.put(scopeClass, constructor);
+      factory = new ReflectiveFactory(scopeImplClass.getDeclaredConstructors()[0]);
+      ScopeRegistry.Factory existing =
+          scopeClassToReflectiveFactory.putIfAbsent(scopeClass, factory);
+      if (existing != null) {
+        factory = existing;
+      }
     }
-    return constructor;
+    return factory;
   }
 
   private static Class<?> getScopeImplClass(Class<?> scopeClass) {
@@ -91,4 +132,49 @@ public class ScopeFactory {
     }
     return sb.toString();
   }
+
+  /**
+   * Factories of the registries visible to the class loader of Motif itself, which is the only one
+   * in most apps. R8 recognizes this form of {@link ServiceLoader#load} and replaces it with direct
+   * instantiation of the registries listed in META-INF/services.
+   */
+  private static class DefaultFactories {
+
+    static final Map<Class<?>, ScopeRegistry.Factory> FACTORIES =
+        loadFactories(
+            ServiceLoader.load(ScopeRegistry.class, ScopeRegistry.class.getClassLoader())
+                .iterator());
+  }
+
+  /**
+   * Fallback for Scopes that aren't registered in a {@link ScopeRegistry}. The constructor's arity
+   * is resolved once so that each call only pays for {@link Constructor#newInstance}.
+   */
+  private static class ReflectiveFactory implements ScopeRegistry.Factory {
+
+    private final Constructor<?> constructor;
+    private final boolean hasDependenciesParameter;
+
+    ReflectiveFactory(Constructor<?> constructor) {
+      this.constructor = constructor;
+      this.hasDependenciesParameter = constructor.getParameterTypes().length != 0;
+    }
+
+    @Override
+    public Object create(Object dependencies) {
+      try {
+        if (hasDependenciesParameter) {
+          return constructor.newInstance(dependencies);
+        } else {
+          return constructor.newInstance();
+        }
+      } catch (IllegalAccessException e) {
+        throw new RuntimeException(e);
+      } catch (InvocationTargetException e) {
+        throw new RuntimeException(e);
+      } catch (InstantiationException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
 }
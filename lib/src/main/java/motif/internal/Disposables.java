@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.internal;
+
+import motif.Disposable;
+
+public final class Disposables {
+
+  private Disposables() {}
+
+  /**
+   * Disposes every object that implements {@link Disposable}, in order. If any of them throws, the
+   * remaining objects are still disposed and the first exception is rethrown afterwards.
+   */
+  public static void dispose(Object... objects) {
+    RuntimeException failure = null;
+    for (Object object : objects) {
+      if (!(object instanceof Disposable)) continue;
+      try {
+        ((Disposable) object).dispose();
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
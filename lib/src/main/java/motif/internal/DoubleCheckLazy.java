@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.internal;
+
+import javax.inject.Provider;
+import motif.Lazy;
+
+public final class DoubleCheckLazy<T> implements Lazy<T> {
+
+  private Provider<? extends T> provider;
+  private volatile Object instance = None.NONE;
+
+  private DoubleCheckLazy(Provider<? extends T> provider) {
+    this.provider = provider;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public T get() {
+    Object result = instance;
+    if (result == None.NONE) {
+      synchronized (this) {
+        result = instance;
+        if (result == None.NONE) {
+          result = provider.get();
+          instance = result;
+          // Release the provider so that anything it references can be collected.
+          provider = null;
+        }
+      }
+    }
+    return (T) result;
+  }
+
+  public static <T> Lazy<T> lazy(Provider<? extends T> provider) {
+    return new DoubleCheckLazy<T>(provider);
+  }
+}
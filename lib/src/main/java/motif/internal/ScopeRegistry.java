@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.internal;
+
+import java.util.Map;
+
+/**
+ * Generated once per compilation unit by the Motif compiler. Maps each {@link motif.Creatable}
+ * Scope to a factory for its ScopeImpl so that {@link motif.ScopeFactory} can create Scopes without
+ * reflection. Implementations are discovered through {@link java.util.ServiceLoader}.
+ */
+public interface ScopeRegistry {
+
+  void registerAll(Map<Class<?>, Factory> factories);
+
+  interface Factory {
+
+    Object create(Object dependencies);
+  }
+}
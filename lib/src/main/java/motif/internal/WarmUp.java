@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package motif.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the warm-up tasks of a generated ScopeImpl. A task is submitted to the {@link Executor} as
+ * soon as all of the tasks it depends on have completed, so independent tasks run in parallel.
+ */
+public final class WarmUp implements Future<Void> {
+
+  private final Executor executor;
+  private final Runnable[] tasks;
+  private final List<List<Integer>> dependents;
+  private final AtomicInteger[] pendingDependencies;
+  private final AtomicInteger pendingTasks;
+  private final CountDownLatch done = new CountDownLatch(1);
+
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private volatile boolean cancelled;
+
+  private WarmUp(Executor executor, Runnable[] tasks, int[][] dependencies) {
+    this.executor = executor;
+    this.tasks = tasks;
+    this.dependents = new ArrayList<>(tasks.length);
+    this.pendingDependencies = new AtomicInteger[tasks.length];
+    this.pendingTasks = new AtomicInteger(tasks.length);
+    for (int i = 0; i < tasks.length; i++) {
+      dependents.add(new ArrayList<Integer>());
+      pendingDependencies[i] = new AtomicInteger(dependencies[i].length);
+    }
+    for (int i = 0; i < tasks.length; i++) {
+      for (int dependency : dependencies[i]) {
+        dependents.get(dependency).add(i);
+      }
+    }
+  }
+
+  /**
+   * @param tasks the tasks to run.
+   * @param dependencies for each task, the indices of the tasks that must complete before it runs.
+   */
+  public static Future<Void> start(Executor executor, Runnable[] tasks, int[][] dependencies) {
+    WarmUp warmUp = new WarmUp(executor, tasks, dependencies);
+    if (tasks.length == 0) {
+      warmUp.done.countDown();
+      return warmUp;
+    }
+    for (int i = 0; i < tasks.length; i++) {
+      if (dependencies[i].length == 0) {
+        warmUp.submit(i);
+      }
+    }
+    return warmUp;
+  }
+
+  private void submit(final int index) {
+    try {
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              WarmUp.this.run(index);
+            }
+          });
+    } catch (RuntimeException e) {
+      fail(e);
+    }
+  }
+
+  private void run(int index) {
+    if (isDone()) return;
+    try {
+      tasks[index].run();
+    } catch (Throwable t) {
+      fail(t);
+      return;
+    }
+    for (int dependent : dependents.get(index)) {
+      if (pendingDependencies[dependent].decrementAndGet() == 0) {
+        submit(dependent);
+      }
+    }
+    if (pendingTasks.decrementAndGet() == 0) {
+      done.countDown();
+    }
+  }
+
+  private void fail(Throwable t) {
+    failure.compareAndSet(null, t);
+    done.countDown();
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    if (isDone()) return false;
+    cancelled = true;
+    done.countDown();
+    return true;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  @Override
+  public boolean isDone() {
+    return done.getCount() == 0;
+  }
+
+  @Override
+  public Void get() throws InterruptedException, ExecutionException {
+    done.await();
+    return result();
+  }
+
+  @Override
+  public Void get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (!done.await(timeout, unit)) {
+      throw new TimeoutException();
+    }
+    return result();
+  }
+
+  private Void result() throws ExecutionException {
+    if (cancelled) {
+      throw new CancellationException();
+    }
+    Throwable failure = this.failure.get();
+    if (failure != null) {
+      throw new ExecutionException(failure);
+    }
+    return null;
+  }
+}
@@ -16,8 +16,13 @@
 package motif.models
 
 import javax.inject.Inject
+import javax.inject.Provider
+import motif.Deferred
 import motif.DoNotCache
+import motif.Eager
 import motif.Expose
+import motif.Lazy
+import motif.SoftCached
 import motif.ast.IrClass
 import motif.ast.IrMethod
 import motif.ast.IrParameter
@@ -30,7 +35,9 @@ sealed class FactoryMethod(val method: IrMethod, val objects: Objects) {
 
   val isStatic = method.isStatic()
   val isCached = !method.hasAnnotation(DoNotCache::class)
+  val isSoftCached = isCached && method.hasAnnotation(SoftCached::class)
   val isExposed = method.hasAnnotation(Expose::class)
+  val isEager = method.hasAnnotation(Eager::class)
 
   val spread: Spread? =
       if (method.hasAnnotation(motif.Spread::class)) {
@@ -49,20 +56,70 @@ sealed class FactoryMethod(val method: IrMethod, val objects: Objects) {
   val name = method.name
   val qualifiedName: String by lazy { "${objects.qualifiedName}.${method.name}" }
 
-  protected fun getParameters(owner: IrClass, method: IrMethod): List<Parameter> =
+  protected fun getParameters(
+      owner: IrClass,
+      method: IrMethod,
+      allowDeferred: Boolean = true,
+  ): List<Parameter> =
       method.parameters.map { parameter ->
-        Parameter(owner, method, parameter, this, Type.fromParameter(parameter))
+        val type = Type.fromParameter(parameter)
+        val kind = if (allowDeferred) Parameter.Kind.fromParameter(parameter) else null
+        if (kind == null) {
+          Parameter(owner, method, parameter, this, type, Parameter.Kind.INSTANCE)
+        } else {
+          val deferredType = type.type.resolveClass()!!.typeArguments.single()
+          // Wildcards and type variables don't name a dependency that a source could satisfy.
+          if (deferredType.resolveClass() == null) {
+            throw InvalidDeferredParameter(objects.scope, owner, method, parameter)
+          }
+          Parameter(owner, method, parameter, this, Type(deferredType, type.qualifier), kind)
+        }
       }
 
+  /**
+   * @property type The requested dependency. For [Kind.PROVIDER] and [Kind.LAZY] parameters this
+   *   is the type argument of the declared `Provider<T>` or `Lazy<T>` parameter type.
+   */
   class Parameter(
       val owner: IrClass,
       val method: IrMethod,
       val parameter: IrParameter,
       val factoryMethod: FactoryMethod,
       val type: Type,
+      val kind: Kind,
   ) {
 
     val qualifiedName: String by lazy { type.qualifiedName }
+
+    enum class Kind {
+      /** The dependency is created before the factory method is called. */
+      INSTANCE,
+
+      /**
+       * A [Provider] that retrieves the dependency on every call to [Provider.get]. Only used for
+       * parameters annotated with [Deferred], since a plain `Provider<T>` parameter may be
+       * satisfied by a `Provider<T>` source.
+       */
+      PROVIDER,
+
+      /** A [Lazy] that retrieves the dependency once, on the first call to [Lazy.get]. */
+      LAZY,
+      ;
+
+      companion object {
+
+        fun fromParameter(parameter: IrParameter): Kind? {
+          val parameterClass = parameter.type.resolveClass() ?: return null
+          if (parameterClass.typeArguments.size != 1) return null
+          return when (parameterClass.rawQualifiedName) {
+            Lazy::class.java.name -> LAZY
+            Provider::class.java.name ->
+                if (parameter.hasAnnotation(Deferred::class)) PROVIDER else null
+            else -> null
+          }
+        }
+      }
+    }
   }
 
   class ReturnType(val factoryMethod: FactoryMethod, val type: Type) {
@@ -149,7 +206,7 @@ class BindsFactoryMethod private constructor(objects: Objects, method: IrMethod)
     FactoryMethod(method, objects) {
 
   override val returnType = ReturnType(this, Type.fromReturnType(method))
-  override val parameters = getParameters(objects.clazz, method)
+  override val parameters = getParameters(objects.clazz, method, allowDeferred = false)
 
   companion object {
 
@@ -45,6 +45,13 @@ class NullableParameter(
     val parameter: IrParameter,
 ) : ParsingError()
 
+class InvalidDeferredParameter(
+    val scope: Scope,
+    val owner: IrClass,
+    val method: IrMethod,
+    val parameter: IrParameter,
+) : ParsingError()
+
 class NullableDynamicDependency(
     val scope: Scope,
     val method: IrMethod,
@@ -15,7 +15,9 @@
  */
 package motif.models
 
+import motif.CloseableScope
 import motif.ast.IrClass
+import motif.ast.IrMethod
 import motif.ast.IrType
 
 /** [Wiki](https://github.com/uber/motif/wiki#scope) */
@@ -24,6 +26,7 @@ sealed class Scope(val useNullFieldInitialization: Boolean, val clazz: IrClass)
   val simpleName: String by lazy { clazz.simpleName }
   val qualifiedName: String by lazy { clazz.qualifiedName }
 
+  abstract val isCloseable: Boolean
   abstract val objects: Objects?
   abstract val accessMethods: List<AccessMethod>
   abstract val childMethods: List<ChildMethod>
@@ -32,12 +35,28 @@ sealed class Scope(val useNullFieldInitialization: Boolean, val clazz: IrClass)
 
   companion object {
 
-    fun fromClasses(scopeClasses: List<IrClass>): List<Scope> = ScopeFactory(scopeClasses).create()
+    /**
+     * Parses the given Scopes and every Scope reachable through their child methods.
+     *
+     * [findPrecompiledDependencies] returns the generated Dependencies class of a reachable Scope
+     * whose ScopeImpl was compiled earlier. Such Scopes become [PrecompiledScope]s and their
+     * subtrees are not parsed.
+     *
+     * [findParsedScope] returns a Scope parsed earlier from an unchanged class, which is reused as
+     * is. The children of a reused Scope are still visited.
+     */
+    fun fromClasses(
+        scopeClasses: List<IrClass>,
+        findPrecompiledDependencies: (IrClass) -> IrClass? = { null },
+        findParsedScope: (IrClass) -> Scope? = { null },
+    ): List<Scope> =
+        ScopeFactory(scopeClasses, findPrecompiledDependencies, findParsedScope).create()
   }
 }
 
 class ErrorScope internal constructor(clazz: IrClass, val parsingError: ParsingError) :
     Scope(useNullFieldInitialization = false, clazz) {
+  override val isCloseable: Boolean = false
   override val objects: Objects? = null
   override val accessMethods: List<AccessMethod> = emptyList()
   override val childMethods: List<ChildMethod> = emptyList()
@@ -53,10 +72,14 @@ class ValidScope internal constructor(clazz: IrClass, useNullFieldInitialization
     detectScopeSuperinterface(this)
   }
 
+  override val isCloseable: Boolean = extendsCloseableScope(clazz)
+
   override val objects: Objects? = Objects.fromScope(this)
 
   private val scopeMethods =
-      clazz.methods.map { method -> ScopeMethod.fromScopeMethod(this, method) }
+      clazz.methods
+          .filterNot { method -> isCloseable && method.isCloseMethod() }
+          .map { method -> ScopeMethod.fromScopeMethod(this, method) }
 
   override val accessMethods: List<AccessMethod> =
       scopeMethods.mapNotNull { method -> method as? AccessMethod }
@@ -80,14 +103,46 @@ class ValidScope internal constructor(clazz: IrClass, useNullFieldInitialization
         }
       }
     }
+
+    private fun extendsCloseableScope(clazz: IrClass): Boolean =
+        clazz.supertypes
+            .mapNotNull { it.resolveClass() }
+            .any { superClass ->
+              superClass.qualifiedName == CloseableScope::class.java.name ||
+                  extendsCloseableScope(superClass)
+            }
+
+    private fun IrMethod.isCloseMethod(): Boolean =
+        name == "close" && !hasParameters() && isVoid()
   }
 }
 
-private class ScopeFactory(private val initialScopeClasses: List<IrClass>) {
+/**
+ * A Scope whose ScopeImpl was compiled earlier, modeled only by the requirements of its generated
+ * Dependencies class. Its Objects, access methods and child Scopes are never parsed.
+ */
+class PrecompiledScope internal constructor(clazz: IrClass, dependenciesClass: IrClass) :
+    Scope(useNullFieldInitialization = false, clazz) {
+  override val isCloseable: Boolean = false
+  override val objects: Objects? = null
+  override val dependencies: Dependencies = Dependencies(dependenciesClass, this)
+  override val accessMethods: List<AccessMethod> =
+      dependencies.methods.map { method -> AccessMethod(method.method, this) }
+  override val childMethods: List<ChildMethod> = emptyList()
+  override val factoryMethods: List<FactoryMethod> = emptyList()
+}
+
+private class ScopeFactory(
+    private val initialScopeClasses: List<IrClass>,
+    private val findPrecompiledDependencies: (IrClass) -> IrClass?,
+    private val findParsedScope: (IrClass) -> Scope?,
+) {
 
   private val scopeMap: MutableMap<IrType, Scope> = mutableMapOf()
   private val visited: MutableSet<IrType> = mutableSetOf()
 
+  private val initialScopeTypes: Set<IrType> = initialScopeClasses.map { it.type }.toSet()
+
   fun create(): List<Scope> {
     initialScopeClasses.forEach(this::visit)
     return scopeMap.values.toList()
@@ -102,13 +157,20 @@ private class ScopeFactory(private val initialScopeClasses: List<IrClass>) {
 
     if (!scopeMap.containsKey(scopeType)) {
       val scope =
-          try {
-            ValidScope(scopeClass)
-          } catch (e: ParsingError) {
-            ErrorScope(scopeClass, e)
-          }
+          findParsedScope(scopeClass)
+              ?: try {
+                precompiledScope(scopeClass) ?: ValidScope(scopeClass)
+              } catch (e: ParsingError) {
+                ErrorScope(scopeClass, e)
+              }
       scope.childMethods.forEach { childMethod -> visit(childMethod.childScopeClass) }
       scopeMap[scopeType] = scope
     }
   }
+
+  private fun precompiledScope(scopeClass: IrClass): PrecompiledScope? {
+    if (scopeClass.type in initialScopeTypes) return null
+    val dependenciesClass = findPrecompiledDependencies(scopeClass) ?: return null
+    return PrecompiledScope(scopeClass, dependenciesClass)
+  }
 }
@@ -15,10 +15,11 @@
  */
 package motif.sample.app.photo_list_item;
 
+import motif.CacheSynchronization;
 import motif.Scope;
 import motif.sample.lib.controller.ViewlessControllerObjects;
 
-@Scope
+@Scope(cacheSynchronization = CacheSynchronization.THREAD_CONFINED)
 public interface PhotoListItemScope {
 
   PhotoListItemController controller();
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.KT011_cache_synchronization_atomic_kotlin
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import motif.CacheSynchronization
+import motif.Creatable
+
+@motif.Scope(cacheSynchronization = CacheSynchronization.ATOMIC)
+interface Scope : Creatable<Scope.Dependencies> {
+    fun foo(): Foo
+
+    fun bar(): Bar
+
+    @motif.Objects
+    abstract class Objects {
+        abstract fun foo(): Foo
+
+        abstract fun bar(): Bar
+    }
+
+    interface Dependencies
+}
+
+/** The first instance blocks until released. Later instances are created right away. */
+class Foo {
+    init {
+        if (created.incrementAndGet() == 1) {
+            entered.countDown()
+            release.await(1000, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    companion object {
+        @JvmField val created = AtomicInteger()
+        @JvmField val entered = CountDownLatch(1)
+        @JvmField val release = CountDownLatch(1)
+    }
+}
+
+class Bar
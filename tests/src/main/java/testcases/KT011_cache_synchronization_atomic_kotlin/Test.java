@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.KT011_cache_synchronization_atomic_kotlin;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class Test {
+
+    private static final int N_THREADS = 8;
+
+    /**
+     * This tests that the cache isn't guarded by the ScopeImpl monitor, that a caller never waits for
+     * another caller's factory method and that racing callers still observe the same instance.
+     */
+    public static void run() {
+        ExecutorService executorService = Executors.newFixedThreadPool(N_THREADS);
+        try {
+            Scope scope = new ScopeImpl();
+            synchronized (scope) { // would block scope.bar() with CacheSynchronization.SCOPE
+                Future<Bar> bar = executorService.submit(scope::bar);
+                assertThat(bar.get(1000, TimeUnit.MILLISECONDS)).isNotNull();
+            }
+
+            Scope contendedScope = new ScopeImpl();
+            Future<Foo> blocked = executorService.submit(contendedScope::foo);
+            assertThat(Foo.entered.await(1000, TimeUnit.MILLISECONDS)).isTrue();
+
+            // The first Foo is still being created. This call creates and publishes its own.
+            Foo published = contendedScope.foo();
+
+            Foo.release.countDown();
+            assertThat(blocked.get(1000, TimeUnit.MILLISECONDS)).isSameInstanceAs(published);
+            assertThat(contendedScope.foo()).isSameInstanceAs(published);
+            assertThat(Foo.created.get()).isEqualTo(2);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
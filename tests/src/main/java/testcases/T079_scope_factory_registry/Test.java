@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T079_scope_factory_registry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import motif.ScopeFactory;
+import motif.internal.ScopeRegistry;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class Test {
+
+    public static void run() {
+        Scope a = ScopeFactory.create(Scope.class, dependencies("a"));
+        Scope b = ScopeFactory.create(Scope.class, dependencies("b"));
+        assertThat(a).isNotSameInstanceAs(b);
+        assertThat(a.string()).isEqualTo("a");
+        assertThat(b.string()).isEqualTo("b");
+
+        // The reflective fallback would create the same Scopes, so check that the generated
+        // registry is discovered and supplies the factory.
+        Map<Class<?>, ScopeRegistry.Factory> factories = new HashMap<>();
+        for (ScopeRegistry registry :
+                ServiceLoader.load(ScopeRegistry.class, Scope.class.getClassLoader())) {
+            registry.registerAll(factories);
+        }
+        assertThat(factories).containsKey(Scope.class);
+        Scope c = (Scope) factories.get(Scope.class).create(dependencies("c"));
+        assertThat(c.string()).isEqualTo("c");
+    }
+
+    private static Scope.Dependencies dependencies(String s) {
+        return new Scope.Dependencies() {
+            @Override
+            public String s() {
+                return s;
+            }
+        };
+    }
+}
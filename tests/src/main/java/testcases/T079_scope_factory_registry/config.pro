@@ -0,0 +1,12 @@
+-libraryjars <java.home>/jmods/java.base.jmod(!**.jar;!module-info.class)
+-dontshrink
+-keep class **Test {
+    public static void run();
+}
+
+-keepnames @motif.Scope interface *
+-keepnames @motif.ScopeImpl class * {
+    <init>(...);
+}
+-keep class * implements motif.internal.ScopeRegistry
+-adaptresourcefilecontents META-INF/services/motif.internal.ScopeRegistry
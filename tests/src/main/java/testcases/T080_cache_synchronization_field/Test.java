@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T080_cache_synchronization_field;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class Test {
+
+    private static final int N_THREADS = 8;
+
+    /**
+     * This tests that the cache isn't guarded by the ScopeImpl monitor, that creating one object
+     * doesn't block creating another and that concurrent callers share a single instance.
+     */
+    public static void run() {
+        ExecutorService executorService = Executors.newFixedThreadPool(N_THREADS);
+        try {
+            Scope scope = new ScopeImpl();
+            synchronized (scope) { // would block scope.bar() with CacheSynchronization.SCOPE
+                Future<Bar> bar = executorService.submit(scope::bar);
+                assertThat(bar.get(1000, TimeUnit.MILLISECONDS)).isNotNull();
+            }
+
+            Scope contendedScope = new ScopeImpl();
+            List<Future<Foo>> foos = new ArrayList<>();
+            foos.add(executorService.submit(contendedScope::foo));
+            assertThat(Foo.entered.await(1000, TimeUnit.MILLISECONDS)).isTrue();
+            for (int i = 1; i < N_THREADS; i++) {
+                foos.add(executorService.submit(contendedScope::foo));
+            }
+
+            // Foo is still being created, which would block bar() if the locks were shared.
+            Future<Bar> bar = executorService.submit(contendedScope::bar);
+            assertThat(bar.get(1000, TimeUnit.MILLISECONDS)).isNotNull();
+
+            Foo.release.countDown();
+            Foo expected = foos.get(0).get(1000, TimeUnit.MILLISECONDS);
+            for (Future<Foo> foo : foos) {
+                assertThat(foo.get(1000, TimeUnit.MILLISECONDS)).isSameInstanceAs(expected);
+            }
+            assertThat(contendedScope.foo()).isSameInstanceAs(expected);
+            assertThat(Foo.created.get()).isEqualTo(1);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T082_thread_confined;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.reflect.Method;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Test {
+
+    public static void run(Properties options) {
+        Scope scope = new ScopeImpl();
+        assertThat(scope.fooObject()).isSameInstanceAs(scope.fooObject());
+        assertThat(scope.fooObject()).isNotSameInstanceAs(new ScopeImpl().fooObject());
+
+        // @Eager is ignored since warmUp would create fooObject on another thread.
+        for (Method method : ScopeImpl.class.getDeclaredMethods()) {
+            assertThat(method.getReturnType()).isNotEqualTo(Future.class);
+        }
+
+        boolean assertions =
+                Boolean.parseBoolean(options.getProperty("motif.threadConfinedAssertions"));
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Object fooObject = executorService.submit(scope::fooObject).get();
+            if (assertions) {
+                throw new AssertionError("Expected access from a non-owner thread to fail.");
+            }
+            assertThat(fooObject).isSameInstanceAs(scope.fooObject());
+        } catch (ExecutionException e) {
+            if (!assertions) {
+                throw new AssertionError("Expected access without assertions to succeed.", e);
+            }
+            assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T084_provider_lazy_injection;
+
+import javax.inject.Provider;
+import motif.Deferred;
+import motif.Lazy;
+
+@motif.Scope
+public interface Child {
+
+    Bar bar();
+
+    @motif.Objects
+    class Objects {
+
+        Bar bar(@Deferred Provider<Foo> fooProvider, Lazy<Foo> fooLazy) {
+            return new Bar(fooProvider, fooLazy);
+        }
+    }
+}
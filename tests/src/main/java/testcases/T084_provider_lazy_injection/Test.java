@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T084_provider_lazy_injection;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class Test {
+
+    public static void run() {
+        Scope scope = new ScopeImpl();
+        Counter counter = scope.counter();
+
+        Bar bar = scope.bar();
+        assertThat(counter.count).isEqualTo(0);
+
+        Foo lazyFoo = bar.fooLazy.get();
+        assertThat(bar.fooLazy.get()).isSameInstanceAs(lazyFoo);
+        assertThat(counter.count).isEqualTo(1);
+
+        assertThat(bar.fooProvider.get()).isNotSameInstanceAs(bar.fooProvider.get());
+        assertThat(counter.count).isEqualTo(3);
+
+        Bar childBar = scope.child().bar();
+        assertThat(counter.count).isEqualTo(3);
+
+        childBar.fooLazy.get();
+        assertThat(counter.count).isEqualTo(4);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T085_warm_up;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class Test {
+
+    /**
+     * This tests that warmUp creates objects off the calling thread, that B and C, which only share
+     * a dependency, are created at the same time even though the Scope uses the default
+     * CacheSynchronization.SCOPE, and that every object is created after its dependencies.
+     */
+    public static void run() {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            ScopeImpl scope = new ScopeImpl();
+            scope.warmUp(executorService).get(5000, TimeUnit.MILLISECONDS);
+
+            Thread currentThread = Thread.currentThread();
+            assertThat(scope.a().createdOn).isNotSameInstanceAs(currentThread);
+            assertThat(scope.b().createdOn).isNotSameInstanceAs(currentThread);
+            assertThat(scope.c().createdOn).isNotSameInstanceAs(currentThread);
+            assertThat(scope.d().createdOn).isNotSameInstanceAs(currentThread);
+
+            assertThat(scope.b().overlapped).isTrue();
+            assertThat(scope.c().overlapped).isTrue();
+
+            List<String> events = new ArrayList<>(Timeline.events);
+            assertThat(events).hasSize(6);
+            assertThat(events.get(0)).isEqualTo("A");
+            assertThat(events.subList(1, 3)).containsExactly("B started", "C started");
+            assertThat(events.subList(3, 5)).containsExactly("B finished", "C finished");
+            assertThat(events.get(5)).isEqualTo("D");
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T085_warm_up;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/** Records the order in which objects are created. */
+public class Timeline {
+
+    static final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    /** Counted down by B and C, which don't depend on each other. */
+    static final CountDownLatch independentStarted = new CountDownLatch(2);
+
+    /** Returns true if both B and C were being created at the same time. */
+    static boolean awaitIndependent() {
+        independentStarted.countDown();
+        try {
+            return independentStarted.await(1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
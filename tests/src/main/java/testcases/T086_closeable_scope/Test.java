@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T086_closeable_scope;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.ref.WeakReference;
+
+public class Test {
+
+    public static void run() {
+        Scope scope = new ScopeImpl();
+        DisposeLog log = scope.log();
+        scope.bar();
+        WeakReference<Object> fooObject = new WeakReference<>(scope.fooObject());
+
+        scope.close();
+        assertThat(log.disposed).containsExactly("bar", "foo").inOrder();
+
+        scope.close();
+        assertThat(log.disposed).hasSize(2);
+
+        try {
+            scope.bar();
+            throw new AssertionError("Expected access to a closed Scope to fail.");
+        } catch (IllegalStateException expected) {
+        }
+
+        // The closed Scope is still reachable but no longer retains its cached objects.
+        for (int i = 0; i < 100 && fooObject.get() != null; i++) {
+            System.gc();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        assertThat(fooObject.get()).isNull();
+        assertThat(scope).isNotNull();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T087_soft_cached;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+
+public class Test {
+
+    public static void run() {
+        Scope scope = new ScopeImpl();
+        Bitmap bitmap = scope.bitmap();
+
+        // While the Bitmap is strongly reachable, the SoftReference can't be cleared.
+        assertThat(scope.bitmap()).isSameInstanceAs(bitmap);
+        assertThat(scope.renderer().bitmap).isSameInstanceAs(bitmap);
+
+        // Simulate the garbage collector clearing the SoftReference under memory pressure.
+        clearSoftReferences(scope);
+        Bitmap recreated = scope.bitmap();
+        assertThat(recreated).isNotSameInstanceAs(bitmap);
+        assertThat(scope.bitmap()).isSameInstanceAs(recreated);
+        assertThat(scope.renderer().bitmap).isSameInstanceAs(bitmap);
+    }
+
+    private static void clearSoftReferences(Scope scope) {
+        boolean cleared = false;
+        try {
+            // Field names may be obfuscated, so find the cache field by its type.
+            for (Field field : ScopeImpl.class.getDeclaredFields()) {
+                if (field.getType() != SoftReference.class) continue;
+                field.setAccessible(true);
+                ((SoftReference<?>) field.get(scope)).clear();
+                cleared = true;
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        assertThat(cleared).isTrue();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T088_shared_child_dependencies;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+public class Test {
+
+    public static void run() {
+        Scope scope = new ScopeImpl();
+        Child child = scope.child();
+        Child otherChild = scope.child();
+
+        assertThat(otherChild).isNotSameInstanceAs(child);
+        assertThat(child.foo()).isSameInstanceAs(otherChild.foo());
+
+        Set<Object> adapters = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        adapters.add(dependencies(child));
+        adapters.add(dependencies(otherChild));
+        adapters.add(dependencies(scope.child()));
+        assertThat(adapters).hasSize(1);
+
+        // The adapter delegates to its parent ScopeImpl, so it's not shared across parents.
+        adapters.add(dependencies(new ScopeImpl().child()));
+        assertThat(adapters).hasSize(2);
+    }
+
+    private static Object dependencies(Child child) {
+        try {
+            // Field names may be obfuscated, so find the Dependencies field by its type.
+            for (Field field : ChildImpl.class.getDeclaredFields()) {
+                if (field.getType() != ChildImpl.Dependencies.class) continue;
+                field.setAccessible(true);
+                return field.get(child);
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        throw new AssertionError("ChildImpl has no Dependencies field.");
+    }
+}
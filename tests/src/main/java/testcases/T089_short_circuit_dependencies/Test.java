@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T089_short_circuit_dependencies;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.reflect.Field;
+
+public class Test {
+
+    public static void run() {
+        Scope scope = new ScopeImpl(Baz::new);
+        Grandchild grandchild = scope.child().grandchild();
+
+        // Cached objects of an ancestor may be remembered by descendants.
+        assertThat(grandchild.foo()).isSameInstanceAs(grandchild.foo());
+        assertThat(scope.child().grandchild().foo()).isSameInstanceAs(grandchild.foo());
+
+        // Uncached objects and external dependencies must still be requested every time.
+        assertThat(grandchild.bar()).isNotSameInstanceAs(grandchild.bar());
+        assertThat(grandchild.baz()).isNotSameInstanceAs(grandchild.baz());
+        assertThat(declaresField(GrandchildImpl.class, Foo.class)).isTrue();
+        assertThat(declaresField(GrandchildImpl.class, Bar.class)).isFalse();
+        assertThat(declaresField(GrandchildImpl.class, Baz.class)).isFalse();
+
+        // A Creatable child can also be created directly with its own Dependencies.
+        assertThat(scope.creatableChild().qux()).isSameInstanceAs(scope.creatableChild().qux());
+        CreatableChild creatableChild = new CreatableChildImpl(Qux::new);
+        assertThat(creatableChild.qux()).isNotSameInstanceAs(creatableChild.qux());
+        assertThat(declaresField(CreatableChildImpl.class, Qux.class)).isFalse();
+    }
+
+    // Field names may be obfuscated, so look for the remembered dependency by its type.
+    private static boolean declaresField(Class<?> scopeImplClass, Class<?> type) {
+        for (Field field : scopeImplClass.getDeclaredFields()) {
+            if (field.getType() == type) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T091_close_field_synchronization;
+
+import motif.CacheSynchronization;
+import motif.CloseableScope;
+import motif.Creatable;
+
+@motif.Scope(cacheSynchronization = CacheSynchronization.FIELD)
+public interface Scope extends Creatable<Scope.Dependencies>, CloseableScope {
+
+    Foo foo();
+
+    @motif.Objects
+    abstract class Objects {
+
+        abstract Foo foo();
+    }
+
+    interface Dependencies {}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T091_close_field_synchronization;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class Test {
+
+    /**
+     * This tests that close() waits for a Foo that is being created under its field lock and
+     * disposes it, rather than missing it and leaving it alive in a closed Scope.
+     */
+    public static void run() {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Scope scope = new ScopeImpl();
+            Future<Foo> foo = executorService.submit(scope::foo);
+            assertThat(Foo.entered.await(1000, TimeUnit.MILLISECONDS)).isTrue();
+
+            Future<?> close = executorService.submit(scope::close);
+            for (int i = 0; i < 100 && !close.isDone(); i++) {
+                Thread.sleep(1);
+            }
+            // close() is blocked on Foo's lock until Foo has been created.
+            assertThat(close.isDone()).isFalse();
+
+            Foo.release.countDown();
+            close.get(1000, TimeUnit.MILLISECONDS);
+            assertThat(foo.get(1000, TimeUnit.MILLISECONDS).disposed).isTrue();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
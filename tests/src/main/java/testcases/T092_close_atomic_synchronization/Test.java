@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T092_close_atomic_synchronization;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class Test {
+
+    /**
+     * This tests that a Foo published after close() has already released the cache is disposed
+     * and not handed out.
+     */
+    public static void run() {
+        ExecutorService executorService = Executors.newFixedThreadPool(1);
+        try {
+            Scope scope = new ScopeImpl();
+            Future<Foo> foo = executorService.submit(scope::foo);
+            assertThat(Foo.entered.await(1000, TimeUnit.MILLISECONDS)).isTrue();
+
+            // Creation isn't guarded by a lock, so close() completes while Foo is being created.
+            scope.close();
+            Foo.release.countDown();
+
+            try {
+                foo.get(1000, TimeUnit.MILLISECONDS);
+                throw new AssertionError("Expected creating Foo in a closed Scope to fail.");
+            } catch (ExecutionException expected) {
+                assertThat(expected.getCause()).isInstanceOf(IllegalStateException.class);
+            }
+            assertThat(Foo.created.disposed).isTrue();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T093_atomic_race_dispose;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import motif.Disposable;
+
+/** Waits for a second Foo to be created so that two callers race to publish their instance. */
+public class Foo implements Disposable {
+
+    static final CountDownLatch entered = new CountDownLatch(2);
+    static final List<Foo> created = new CopyOnWriteArrayList<>();
+
+    volatile boolean disposed;
+
+    public Foo() {
+        created.add(this);
+        entered.countDown();
+        try {
+            entered.await(1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T093_atomic_race_dispose;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class Test {
+
+    /**
+     * This tests that when two callers create Foo at the same time, the instance that loses the
+     * race is disposed right away and the one that wins is disposed when the Scope is closed.
+     */
+    public static void run() {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Scope scope = new ScopeImpl();
+            Future<Foo> first = executorService.submit(scope::foo);
+            Future<Foo> second = executorService.submit(scope::foo);
+
+            Foo winner = first.get(1000, TimeUnit.MILLISECONDS);
+            assertThat(second.get(1000, TimeUnit.MILLISECONDS)).isSameInstanceAs(winner);
+            assertThat(Foo.created).hasSize(2);
+            Foo loser = Foo.created.get(0) == winner ? Foo.created.get(1) : Foo.created.get(0);
+
+            assertThat(loser.disposed).isTrue();
+            assertThat(winner.disposed).isFalse();
+
+            scope.close();
+            assertThat(winner.disposed).isTrue();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2026 Uber Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testcases.T094_deferred_round_stub_precompiled_scopes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class Test {
+
+    /**
+     * Scope is only added in the second round, after ChildImpl has been generated. With
+     * motif.stubPrecompiledScopes, Scope resolves Child from ChildImpl.Dependencies, so the String
+     * provided by both, which E061 reports, is not seen and Child keeps its own.
+     */
+    public static void run() {
+        Child child = new ScopeImpl(new Scope.Dependencies() {}).child();
+        assertThat(child.s()).isEqualTo("b");
+        assertThat(child.i()).isEqualTo(1);
+    }
+}